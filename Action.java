@@ -0,0 +1,21 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+/**
+ * Action enum.
+ * The actions a player can apply to a space of the board.
+ */
+public enum Action {
+    /** Clears a space, revealing it and, if it has no mines nearby, its whole empty region. */
+    CLEAR,
+    /** Inserts a flag on a hidden space. */
+    FLAG,
+    /** Removes a flag from a space. */
+    REMOVE_FLAG
+}
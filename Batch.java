@@ -0,0 +1,405 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Batch class.
+ * Plays games from a script instead of the keyboard, e.g. games generated by a bot or recorded
+ * elsewhere, through the same Board.Apply, Game.Move_Message and Board.Print_Board used by the
+ * game. A script has one command per line:
+ * 
+ *     game [difficulty] [seed]              starts a game of difficulty 1 to 5
+ *     custom [rows] [columns] [mines] [seed] starts a custom game
+ *     c [row] [column]                      clears a space
+ *     f [row] [column]                      inserts a flag
+ *     r [row] [column]                      removes a flag
+ * 
+ * The seeds are optional, and everything after a '#' is a comment. Moves after a game is won or
+ * lost are invalid until the next game starts.
+ * 
+ * The script is read as bytes, from a memory-mapped file or from a buffered channel over the
+ * standard input, and parsed by hand: no Scanner, no Strings and no regexes, so the parsing costs
+ * a few nanoseconds per move and the time goes to the Board.
+ * 
+ * By default one line is printed per game, with its outcome. -q only prints the totals at the
+ * end, and -v prints every move and the board after it, as the game does.
+ * 
+ * Usage: java Batch [-q | -v] [script]
+ *        java Game --batch [-q | -v] [script]
+ * Without a script, or with "-", the script is read from the standard input.
+ */
+public class Batch {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_ERRORS = 10;
+    private static final long GAME = Key("game");
+    private static final long CUSTOM = Key("custom");
+    private static final long CLEAR = Key("c");
+    private static final long FLAG = Key("f");
+    private static final long REMOVE_FLAG = Key("r");
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private int next;
+    private long line = 1;
+    private boolean bad_line;
+
+    private final Board minefield = new Board();
+    private final boolean quiet, verbose;
+    private boolean playing;
+    private long game_moves;
+    private long games, wins, losses, unfinished, moves, errors;
+
+    /**
+     * Prepares a script to be played.
+     * 
+     * @param script The script's file, or null for the standard input.
+     * @param quiet If only the totals are printed.
+     * @param verbose If every move is printed.
+     * @throws IOException If the script can't be read.
+     */
+    public Batch(String script, boolean quiet, boolean verbose) throws IOException {
+        this.quiet = quiet;
+        this.verbose = verbose;
+
+        if (script == null) {
+            this.channel = Channels.newChannel(System.in);
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+            return ;
+        }
+
+        FileChannel file = FileChannel.open(Paths.get(script), StandardOpenOption.READ);
+
+        if (file.size() <= Integer.MAX_VALUE) {
+            this.buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            this.channel = null;
+            file.close();
+        } else {
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+            this.channel = file;
+        }
+    }
+
+    /**
+     * Packs a word of up to 8 ASCII letters into a long, so words can be compared without Strings.
+     */
+    private static long Key(String word) {
+        long key = 0;
+
+        for (int i = 0; i < word.length(); i++) key = (key << 8) | word.charAt(i);
+
+        return key;
+    }
+
+    /**
+     * Reads the next byte of the script into next, or -1 at its end.
+     */
+    private void Advance() throws IOException {
+        while (buffer.hasRemaining() == false) {
+            if (channel == null) {
+                next = -1;
+                return ;
+            }
+
+            buffer.clear();
+            int read = channel.read(buffer);
+            buffer.flip();
+
+            if (read < 0) {
+                next = -1;
+                return ;
+            }
+        }
+
+        next = buffer.get() & 0xFF;
+    }
+
+    /**
+     * Skips spaces and tabs.
+     */
+    private void Skip_Spaces() throws IOException {
+        while (next == ' ' || next == '\t' || next == '\r') Advance();
+    }
+
+    /**
+     * Reads a word of letters.
+     * 
+     * @return  The word as given by Key, or 0 if there is none. A word of more than 8 letters
+     * marks the line as bad.
+     */
+    private long Word() throws IOException {
+        long key = 0;
+        int length = 0;
+
+        Skip_Spaces();
+
+        while ((next >= 'a' && next <= 'z') || (next >= 'A' && next <= 'Z')) {
+            key = (key << 8) | (next | 0x20);
+            length++;
+            Advance();
+        }
+
+        if (length > 8) {
+            bad_line = true;
+            return 0;
+        }
+
+        return key;
+    }
+
+    /**
+     * Returns if there is a number left on the line.
+     */
+    private boolean Has_Number() throws IOException {
+        Skip_Spaces();
+        return next == '-' || (next >= '0' && next <= '9');
+    }
+
+    /**
+     * Reads a number, possibly negative, such as a seed. Marks the line as bad if there is none or
+     * it doesn't fit in a long.
+     */
+    private long Number() throws IOException {
+        boolean negative = false;
+        long value = 0;
+        int digits = 0;
+
+        Skip_Spaces();
+
+        if (next == '-') {
+            negative = true;
+            Advance();
+        }
+
+        // Counted downwards, since Long.MIN_VALUE has no positive counterpart.
+        while (next >= '0' && next <= '9') {
+            if (value < (Long.MIN_VALUE + (next - '0')) / 10) bad_line = true;
+
+            value = value * 10 - (next - '0');
+            digits++;
+            Advance();
+        }
+
+        if (digits == 0 || (negative == false && value == Long.MIN_VALUE)) bad_line = true;
+
+        return negative ? value : -value;
+    }
+
+    /**
+     * Marks the line as bad if anything but spaces or a comment is left on it, so a line is
+     * checked whole before it's played.
+     */
+    private void Expect_Line_End() throws IOException {
+        Skip_Spaces();
+        if (next != '\n' && next != '#' && next != -1) bad_line = true;
+    }
+
+    /**
+     * Skips the rest of the line. Anything but spaces or a comment there makes the line bad.
+     */
+    private void End_Line() throws IOException {
+        Expect_Line_End();
+
+        while (next != '\n' && next != -1) Advance();
+
+        if (next == '\n') Advance();
+        line++;
+    }
+
+    /**
+     * Plays the whole script.
+     */
+    public void Run() throws IOException {
+        Advance();
+
+        while (next != -1) {
+            this.bad_line = false;
+            long command = Word();
+
+            if (command == GAME || command == CUSTOM) {
+                Start_Game(command);
+            } else if (command == CLEAR || command == FLAG || command == REMOVE_FLAG) {
+                Move(command);
+            } else if (command != 0) {
+                bad_line = true;
+            }
+
+            long number = this.line;
+            End_Line();
+
+            if (bad_line) Error(number);
+        }
+
+        if (playing) End_Game(null);
+    }
+
+    /**
+     * Starts a game, ending the last one if it wasn't finished.
+     */
+    private void Start_Game(long command) throws IOException {
+        long size[] = new long[3];
+        int count = (command == GAME) ? 1 : 3;
+
+        for (int i = 0; i < count; i++) size[i] = Number();
+
+        boolean seeded = Has_Number();
+        long seed = seeded ? Number() : 0;
+
+        Expect_Line_End();
+        if (bad_line) return ;
+        if (playing) End_Game(null);
+
+        // Checked before the seed is set, so a bad line never leaves it to the next game.
+        if (command == GAME) {
+            bad_line = size[0] < 1 || size[0] > 5;
+        } else {
+            bad_line = size[0] < 0 || size[0] > Board.MAX_SIZE ||
+                       size[1] < 0 || size[1] > Board.MAX_SIZE;
+        }
+
+        if (bad_line) return ;
+        if (seeded) minefield.Set_Seed(seed);
+
+        boolean valid;
+
+        if (command == GAME) {
+            valid = minefield.Set_Difficulty((int) size[0]);
+        } else {
+            valid = minefield.Set_Custom_Board((int) size[0], (int) size[1], size[2]);
+        }
+
+        // The Board drops the seed when it can't be set.
+        if (valid == false) {
+            bad_line = true;
+            return ;
+        }
+
+        this.playing = true;
+        this.game_moves = 0;
+
+        if (verbose) {
+            System.out.println("Game " + games + ": " + minefield.Display_Rows() + "x" +
+                               minefield.Display_Columns() + ", " +
+                               minefield.Display_Quant_Mines() + " mines, seed " +
+                               minefield.Display_Seed() + ".");
+        }
+    }
+
+    /**
+     * Plays a move of the current game.
+     */
+    private void Move(long command) throws IOException {
+        long x = Number();
+        long y = Number();
+
+        Expect_Line_End();
+        if (bad_line) return ;
+
+        if (playing == false || x < 0 || y < 0 || x > Integer.MAX_VALUE || y > Integer.MAX_VALUE) {
+            bad_line = true;
+            return ;
+        }
+
+        Action action = (command == CLEAR) ? Action.CLEAR :
+                        (command == FLAG) ? Action.FLAG : Action.REMOVE_FLAG;
+        MoveResult result = minefield.Apply(action, (int) x, (int) y);
+
+        this.game_moves++;
+        this.moves++;
+
+        if (verbose) {
+            Game.Move_Message(System.out, action, result, (int) x, (int) y);
+            System.out.println();
+            minefield.Print_Board();
+            System.out.println();
+        }
+
+        if (result == MoveResult.VICTORY || result == MoveResult.DEFEAT) End_Game(result);
+    }
+
+    /**
+     * Counts a game once it's won, lost or left unfinished.
+     * 
+     * @param result VICTORY, DEFEAT, or null if the game wasn't finished.
+     */
+    private void End_Game(MoveResult result) {
+        if (result == MoveResult.VICTORY) {
+            wins++;
+        } else if (result == MoveResult.DEFEAT) {
+            losses++;
+        } else {
+            unfinished++;
+        }
+
+        if (quiet == false) {
+            System.out.println("Game " + games + ": " +
+                               ((result == null) ? "UNFINISHED" : result.toString()) + " after " +
+                               game_moves + " moves.");
+        }
+
+        this.games++;
+        this.playing = false;
+    }
+
+    /**
+     * Reports a line of the script that couldn't be played.
+     */
+    private void Error(long number) {
+        if (errors++ < MAX_ERRORS) {
+            System.err.println("ERROR CODE 10: Line " + number + " of the script is invalid!");
+        }
+    }
+
+    /**
+     * Prints the totals of the script.
+     * 
+     * @param seconds Time the script took to play.
+     */
+    public void Print_Totals(double seconds) {
+        System.out.printf("%d games: %d won, %d lost, %d unfinished. %d moves, %d invalid lines. " +
+                          "%.3f s (%.0f games/s, %.0f moves/s).%n", games, wins, losses,
+                          unfinished, moves, errors, seconds, games / seconds, moves / seconds);
+    }
+
+    /**
+     * MAIN FUNCTION!
+     */
+    public static void main(String[] args) {
+        boolean quiet = false, verbose = false;
+        String script = null;
+
+        for (String arg : args) {
+            if (arg.equals("-q")) {
+                quiet = true;
+            } else if (arg.equals("-v")) {
+                verbose = true;
+            } else if (arg.equals("-") == false) {
+                script = arg;
+            }
+        }
+
+        Metrics.Configure();
+
+        try {
+            long start = System.nanoTime();
+            Batch batch = new Batch(script, quiet, verbose);
+
+            batch.Run();
+            batch.Print_Totals((System.nanoTime() - start) / 1e9);
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 3: The script couldn't be read!");
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark class.
+ * Measures board generation, Clear_Space, Victory and Print_Board for difficulties 1 to 5 and for
+ * custom boards up to the maximum size, whole rounds of the game on a reused board and on a new
+ * one, the byte stores against BitCellStore on boards of STORE_SIZES, and the ScoreStore with
+ * SCORE_GAMES recorded games. Each benchmark reports its throughput and how many bytes it 
+ * allocates per operation, which is the same figure as JMH's gc.alloc.rate.norm.
+ * 
+ * Usage: java Benchmark [name filter]
+ * e.g. "java Benchmark clear" only runs the Clear_Space benchmarks.
+ */
+public class Benchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final long ROUND_NANOS = 500_000_000L;
+    private static final int[][] CUSTOM_SIZES = {
+        {100, 100}, {1000, 1000}, {4096, 4096}, {100000, 100000}
+    };
+
+    private static final int[] STORE_SIZES = {35, 100, 1000, 10000};
+    private static final int SCORE_GAMES = 1_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Keeps the results of the benchmarked calls alive, so they can't be optimized away. */
+    static volatile long sink;
+
+    /**
+     * One benchmarked operation. Prepare runs before every batch of calls of Run and is neither 
+     * timed nor counted in the allocations.
+     */
+    interface Operation {
+        default void Prepare() {}
+
+        void Run();
+    }
+
+    /**
+     * Sets a board with a fixed seed, so every run measures the same layouts.
+     * 
+     * @param minefield The board to be set.
+     * @param difficulty Difficulty from 1 to 5, or 0 for a custom board.
+     * @param rows Number of rows of a custom board.
+     * @param columns Number of columns of a custom board.
+     * @param seed Seed of the board.
+     * @return  The given board.
+     */
+    private static Board New_Board(Board minefield, int difficulty, int rows, int columns,
+                                   long seed) {
+        minefield.Set_Seed(seed);
+
+        if (difficulty == 0) {
+            minefield.Set_Custom_Board(rows, columns, (long) rows * columns * 15 / 100);
+        } else {
+            minefield.Set_Difficulty(difficulty);
+        }
+
+        return minefield;
+    }
+
+    /**
+     * Runs an operation for the warmup and measured rounds and prints the result line.
+     * 
+     * @param name Name of the benchmark.
+     * @param parameter Board the benchmark runs on.
+     * @param batch Number of calls of Run after each call of Prepare. Fast operations use large
+     * batches, so the time and allocation probes don't dominate the result.
+     * @param operation The benchmarked operation.
+     */
+    private static void Measure(String name, String parameter, int batch, Operation operation) {
+        double ops_per_second = 0;
+        double bytes_per_op = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            long calls = 0, nanos = 0, bytes = 0;
+            long round_start = System.nanoTime();
+
+            while (System.nanoTime() - round_start < ROUND_NANOS) {
+                operation.Prepare();
+
+                long thread = Thread.currentThread().getId();
+                long allocated = THREADS.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+
+                for (int i = 0; i < batch; i++) {
+                    operation.Run();
+                }
+
+                nanos += System.nanoTime() - start;
+                bytes += THREADS.getThreadAllocatedBytes(thread) - allocated;
+                calls += batch;
+            }
+
+            if (round >= WARMUP_ROUNDS) {
+                ops_per_second += calls * 1e9 / nanos / MEASURED_ROUNDS;
+                bytes_per_op += (double) bytes / calls / MEASURED_ROUNDS;
+            }
+        }
+
+        System.err.printf("%-14s %-17s %14.1f ops/s %14.1f ns/op %14.1f B/op%n", name, parameter,
+                          ops_per_second, 1e9 / ops_per_second, bytes_per_op);
+    }
+
+    /**
+     * MAIN FUNCTION!
+     */
+    public static void main(String[] args) {
+        String filter = (args.length > 0) ? args[0] : "";
+
+        // Boards print to System.out, so it's muted and the results go to System.err.
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.err.printf("%-14s %-17s %20s %20s %19s%n", "Benchmark", "Board", "Throughput",
+                          "Time", "Allocated");
+
+        int[][] boards = new int[5 + CUSTOM_SIZES.length][];
+
+        for (int difficulty = 1; difficulty <= 5; difficulty++) {
+            boards[difficulty - 1] = new int[] {difficulty, 0, 0};
+        }
+
+        for (int i = 0; i < CUSTOM_SIZES.length; i++) {
+            boards[5 + i] = new int[] {0, CUSTOM_SIZES[i][0], CUSTOM_SIZES[i][1]};
+        }
+
+        for (int[] b : boards) {
+            String parameter = (b[0] != 0) ? "difficulty " + b[0] : b[1] + "x" + b[2];
+            Board minefield = new Board();
+            long seeds[] = {0};
+
+            if ("generate".contains(filter)) {
+                Measure("generate", parameter, 1, () ->
+                    New_Board(minefield, b[0], b[1], b[2], seeds[0]++));
+            }
+
+            if ("clear".contains(filter)) {
+                Measure("clear", parameter, 1, new Operation() {
+                    public void Prepare() {
+                        New_Board(minefield, b[0], b[1], b[2], seeds[0]++);
+                    }
+
+                    public void Run() {
+                        int rows = minefield.Display_Rows();
+                        int columns = minefield.Display_Columns();
+                        minefield.Clear_Space(rows / 2, columns / 2);
+                        sink += minefield.Changed_Count();
+                    }
+                });
+            }
+
+            New_Board(minefield, b[0], b[1], b[2], 1);
+            minefield.Clear_Space(minefield.Display_Rows() / 2, minefield.Display_Columns() / 2);
+
+            if ("victory".contains(filter)) {
+                Measure("victory", parameter, 1000, () -> sink += minefield.Victory() ? 1 : 0);
+            }
+
+            if ("print".contains(filter)) {
+                Measure("print", parameter, 1, () -> minefield.Print_Board());
+            }
+        }
+
+        if ("round".contains(filter)) {
+            Board reused = new Board();
+            long rounds[] = {0};
+
+            Measure("round", "reused board", 1, () -> Play_Round(reused, rounds[0]++));
+            Measure("round", "new board", 1, () -> Play_Round(new Board(), rounds[0]++));
+        }
+
+        if ("store-generate store-reveal".contains(filter)) Measure_Stores(filter);
+
+        if ("score-submit score-top score-rank score-best".contains(filter)) {
+            try {
+                Measure_Scores(filter);
+            } catch (IOException e) {
+                System.err.println("ERROR CODE 2: The scoreboard can't be written!");
+            }
+        }
+    }
+
+    /**
+     * Plays the moves every round of the game makes, whatever the player does: sets a board of the
+     * next difficulty, so the size changes every round, clears the middle space, checks for 
+     * victory and prints the board.
+     * 
+     * @param minefield The board of the round.
+     * @param round Number of the round, which gives its difficulty and seed.
+     */
+    private static void Play_Round(Board minefield, long round) {
+        New_Board(minefield, 1 + (int) (round % 5), 0, 0, round);
+        int rows = minefield.Display_Rows();
+        int columns = minefield.Display_Columns();
+
+        minefield.Apply(Action.CLEAR, rows / 2, columns / 2);
+        sink += minefield.Victory() ? 1 : 0;
+        minefield.Print_Board();
+    }
+
+    /**
+     * Measures the same square boards of STORE_SIZES stored as bytes, in a FlatCellStore or a 
+     * TiledCellStore, and as bits, in a BitCellStore. "store-generate" sets a board with 15% of 
+     * mines and clears its middle, which places the mines and opens a small region; 
+     * "store-reveal" clears the middle of a board with 4% of mines, which opens most of the board.
+     * 
+     * @param filter Name filter of the benchmarks.
+     */
+    private static void Measure_Stores(String filter) {
+        for (int size : STORE_SIZES) {
+            for (boolean bits : new boolean[] {false, true}) {
+                Board minefield = new Board();
+                String parameter = size + "x" + size + (bits ? " bits" : " bytes");
+                long seeds[] = {0};
+
+                minefield.Set_Bit_Board(bits);
+
+                if ("store-generate".contains(filter)) {
+                    Measure("store-generate", parameter, 1, () -> {
+                        New_Board(minefield, 0, size, size, seeds[0]++);
+                        minefield.Clear_Space(size / 2, size / 2);
+                        sink += minefield.Changed_Count();
+                    });
+                }
+
+                if ("store-reveal".contains(filter)) {
+                    Measure("store-reveal", parameter, 1, new Operation() {
+                        public void Prepare() {
+                            minefield.Set_Seed(seeds[0]++);
+                            minefield.Set_Custom_Board(size, size, (long) size * size / 25);
+                        }
+
+                        public void Run() {
+                            minefield.Clear_Space(size / 2, size / 2);
+                            sink += minefield.Changed_Count();
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Measures the ScoreStore in a temporary directory, after recording SCORE_GAMES games with
+     * random scores by 1000 players.
+     * 
+     * @param filter Name filter of the benchmarks.
+     * @throws IOException If the store can't be written.
+     */
+    private static void Measure_Scores(String filter) throws IOException {
+        Path directory = Files.createTempDirectory("scores");
+        ScoreStore store = new ScoreStore(directory);
+        java.util.SplittableRandom rng = new java.util.SplittableRandom(2022);
+        String parameter = SCORE_GAMES + " games";
+
+        for (int i = 0; i < SCORE_GAMES; i += 10000) {
+            java.util.List<ScoreStore.Record> batch = new java.util.ArrayList<ScoreStore.Record>();
+
+            for (int j = 0; j < 10000; j++) {
+                batch.add(new ScoreStore.Record("Player " + rng.nextInt(1000),
+                                                rng.nextInt(100000), 1 + j % 5, 0, 0));
+            }
+
+            store.Submit_All(batch);
+        }
+
+        Operation submit = () -> Score_Call(() ->
+            store.Submit("Player " + rng.nextInt(1000), rng.nextInt(100000), 3, 0, 0));
+        Operation top = () -> Score_Call(() -> store.Top(10).length);
+        Operation rank = () -> Score_Call(() -> store.Rank(rng.nextInt(100000)));
+        Operation best = () -> Score_Call(() -> store.Best("Player " + rng.nextInt(1000)).score);
+
+        if ("score-submit".contains(filter)) Measure("score-submit", parameter, 10, submit);
+        if ("score-top".contains(filter)) Measure("score-top", parameter, 100, top);
+        if ("score-rank".contains(filter)) Measure("score-rank", parameter, 100, rank);
+        if ("score-best".contains(filter)) Measure("score-best", parameter, 100, best);
+
+        store.Close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * A call to the ScoreStore.
+     */
+    interface Score_Query {
+        long Run() throws IOException;
+    }
+
+    /**
+     * Runs a call to the ScoreStore, keeping its result alive.
+     */
+    private static void Score_Call(Score_Query query) {
+        try {
+            sink += query.Run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,515 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * BitCellStore class.
+ * Stores the board as bit planes: the MINE, REVEALED and FLAG bits of each line are kept in
+ * their own longs, 64 spaces per long, so a board takes 3 bits per space instead of a byte. The
+ * mines nearby aren't stored at all: Get counts them for revealed spaces, with a popcount of the
+ * mines of the 3 lines around the space.
+ * 
+ * Clearing a space with no mines nearby opens its region with Flood, 64 spaces at a time. The
+ * spaces with no mines nearby are found with shifts and ORs of the mine planes, a region spreads
+ * along a line with a fill that doubles its reach at every step, and to the lines above and below
+ * with shifts of the spaces reached, so the work depends on the number of longs of the region
+ * rather than on its number of spaces.
+ * 
+ * Snapshot sees a BitCellStore as one block per line, converted from and to bytes when a game is
+ * saved or resumed.
+ */
+public class BitCellStore implements CellStore {
+    private final int rows;
+    private final int columns;
+    private final int words;
+    private final long last_word;
+    private final long mines[];
+    private final long revealed[];
+    private final long flags[];
+    private final long frontier[];
+    private final int pending[];
+    private final boolean queued[];
+    private int pending_head, pending_count;
+    private int opened;
+    private byte line_cells[];
+
+    /**
+     * Creates a blank store.
+     * 
+     * @param rows Number of lines of the board.
+     * @param columns Number of columns of the board.
+     */
+    public BitCellStore(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.words = (columns + 63) >>> 6;
+        this.last_word = ((columns & 63) == 0) ? -1L : (1L << columns) - 1;
+        this.mines = new long[rows * words];
+        this.revealed = new long[rows * words];
+        this.flags = new long[rows * words];
+        this.frontier = new long[rows * words];
+        this.pending = new int[rows];
+        this.queued = new boolean[rows];
+    }
+
+    @Override
+    public int Get(int x, int y) {
+        int i = x * words + (y >>> 6);
+        long bit = 1L << y;
+        int cell = 0;
+
+        if ((mines[i] & bit) != 0) cell |= Board.MINE;
+        if ((flags[i] & bit) != 0) cell |= Board.FLAG;
+        if ((revealed[i] & bit) != 0) cell |= Board.REVEALED | Count_Nearby(x, y);
+
+        return cell;
+    }
+
+    /**
+     * Overwrites the MINE, REVEALED and FLAG bits of a space. The NEARBY bits are ignored, since
+     * they're counted by Get.
+     */
+    @Override
+    public void Set(int x, int y, int cell) {
+        int i = x * words + (y >>> 6);
+        long bit = 1L << y;
+
+        mines[i] = ((cell & Board.MINE) != 0) ? mines[i] | bit : mines[i] & ~bit;
+        revealed[i] = ((cell & Board.REVEALED) != 0) ? revealed[i] | bit : revealed[i] & ~bit;
+        flags[i] = ((cell & Board.FLAG) != 0) ? flags[i] | bit : flags[i] & ~bit;
+    }
+
+    @Override
+    public void Clear() {
+        Arrays.fill(mines, 0);
+        Arrays.fill(revealed, 0);
+        Arrays.fill(flags, 0);
+    }
+
+    @Override
+    public long Allocated_Bytes() {
+        return 32L * mines.length + 5L * rows;
+    }
+
+    @Override
+    public int Blocks() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the spaces of a line as bytes. The array is reused by the next call.
+     */
+    @Override
+    public byte[] Block(int index) {
+        if (line_cells == null) line_cells = new byte[columns];
+
+        for (int y = 0; y < columns; y++) {
+            int i = index * words + (y >>> 6);
+            long bit = 1L << y;
+
+            line_cells[y] = (byte) ((((mines[i] & bit) != 0) ? Board.MINE : 0) |
+                                    (((revealed[i] & bit) != 0) ? Board.REVEALED : 0) |
+                                    (((flags[i] & bit) != 0) ? Board.FLAG : 0));
+        }
+
+        return line_cells;
+    }
+
+    /**
+     * Returns an array for the spaces of a line, which are only stored by Commit_Block.
+     */
+    @Override
+    public byte[] Restore_Block(int index) {
+        if (line_cells == null) line_cells = new byte[columns];
+
+        return line_cells;
+    }
+
+    @Override
+    public void Commit_Block(int index) {
+        for (int y = 0; y < columns; y++) {
+            Set(index, y, line_cells[y]);
+        }
+    }
+
+    @Override
+    public long Space_Of(int index, int offset) {
+        return ((long) index << 32) | offset;
+    }
+
+    /**
+     * Copies every space of another store of the same size.
+     * 
+     * @param source The store to be copied.
+     */
+    public void Copy_From(BitCellStore source) {
+        System.arraycopy(source.mines, 0, this.mines, 0, this.mines.length);
+        System.arraycopy(source.revealed, 0, this.revealed, 0, this.revealed.length);
+        System.arraycopy(source.flags, 0, this.flags, 0, this.flags.length);
+    }
+
+    /**
+     * Hides every space and removes every flag, keeping the mines.
+     */
+    public void Hide_All() {
+        Arrays.fill(revealed, 0);
+        Arrays.fill(flags, 0);
+    }
+
+    /**
+     * Checks if the store can hold a board of the given size without being reallocated.
+     * 
+     * @param rows Number of lines of the board.
+     * @param columns Number of columns of the board.
+     * @return  If the store has exactly that size.
+     */
+    public boolean Same_Size(int rows, int columns) {
+        return this.rows == rows && this.columns == columns;
+    }
+
+    /**
+     * Places the mines of a small board with the same draws as Board.Set_Mines, straight into the
+     * mine plane, so the board is the same as with a FlatCellStore.
+     * 
+     * @param rng Random generator of the board, seeded with its seed.
+     * @param quant_mines Number of mines.
+     * @param excluded Spaces kept free of mines by the first move, in increasing order.
+     * @param count Number of excluded spaces.
+     * @return  The number of mines placed on flagged spaces.
+     */
+    public long Place_Mines(Random rng, int quant_mines, int excluded[], int count) {
+        int spaces = rows * columns - count;
+        long flagged = 0;
+
+        for (int j = spaces - quant_mines; j < spaces; j++) {
+            int t = Board.Skip_Excluded(rng.nextInt(j + 1), excluded, count);
+            int y = t % columns;
+            int i = (t / columns) * words + (y >>> 6);
+
+            if ((mines[i] & (1L << y)) != 0) {
+                t = Board.Skip_Excluded(j, excluded, count);
+                y = t % columns;
+                i = (t / columns) * words + (y >>> 6);
+            }
+
+            mines[i] |= 1L << y;
+        }
+
+        for (int i = 0; i < mines.length; i++) {
+            flagged += Long.bitCount(mines[i] & flags[i]);
+        }
+
+        return flagged;
+    }
+
+    /**
+     * Places the mines of a large board the way a TiledCellStore with the same seed places them,
+     * tile after tile, so the board is the same whichever store plays it.
+     * 
+     * @param quant_mines Number of mines in the whole board.
+     * @param seed Seed of the board.
+     * @param x Line coordinates of the first move.
+     * @param y Column coordinates of the first move.
+     * @return  The number of mines placed on flagged spaces.
+     */
+    public long Place_Tiled_Mines(long quant_mines, long seed, int x, int y) {
+        TiledCellStore tiles = new TiledCellStore(rows, columns, quant_mines, seed);
+        byte tile[] = new byte[TiledCellStore.TILE * TiledCellStore.TILE];
+        long flagged = 0;
+
+        tiles.Place_Mines(x, y);
+
+        for (int index = 0; index < tiles.Blocks(); index++) {
+            Arrays.fill(tile, (byte) 0);
+            tiles.Load_Mines(index, tile);
+
+            for (int offset = 0; offset < tile.length; offset++) {
+                if (tile[offset] == 0) continue;
+
+                long space = tiles.Space_Of(index, offset);
+                int column = (int) space;
+                mines[(int) (space >>> 32) * words + (column >>> 6)] |= 1L << column;
+            }
+        }
+
+        for (int i = 0; i < mines.length; i++) {
+            flagged += Long.bitCount(mines[i] & flags[i]);
+        }
+
+        return flagged;
+    }
+
+    /**
+     * Counts the mines in the neighbouring spaces.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  The number of mines nearby.
+     */
+    public int Count_Nearby(int x, int y) {
+        int nearby = Long.bitCount(Window(x, y) & ~2L);
+
+        if (x > 0) nearby += Long.bitCount(Window(x - 1, y));
+        if (x < rows - 1) nearby += Long.bitCount(Window(x + 1, y));
+
+        return nearby;
+    }
+
+    /**
+     * Returns the mines of columns y - 1, y and y + 1 of a line, as bits 0, 1 and 2.
+     */
+    private long Window(int x, int y) {
+        int base = x * words;
+        if (y == 0) return (mines[base] << 1) & 7;
+
+        int k = (y - 1) >>> 6;
+        int shift = (y - 1) & 63;
+        long window = mines[base + k] >>> shift;
+
+        if (shift > 61 && k + 1 < words) window |= mines[base + k + 1] << (64 - shift);
+
+        return window & 7;
+    }
+
+    /**
+     * Returns the spaces of a long that are on the board.
+     */
+    private long Valid(int k) {
+        return (k == words - 1) ? last_word : -1L;
+    }
+
+    /**
+     * Returns the spaces of a long that have a mine or a mine on either side.
+     */
+    private long Spread(int x, int k) {
+        int i = x * words + k;
+        long word = mines[i];
+        long spread = word | (word << 1) | (word >>> 1);
+
+        if (k > 0) spread |= mines[i - 1] >>> 63;
+        if (k < words - 1) spread |= mines[i + 1] << 63;
+
+        return spread;
+    }
+
+    /**
+     * Returns the spaces of a long that have no mine and no mines nearby.
+     * 
+     * @param x Line of the spaces.
+     * @param k Index of the long in the line.
+     */
+    private long Zero(int x, int k) {
+        long near = Spread(x, k);
+
+        if (x > 0) near |= Spread(x - 1, k);
+        if (x < rows - 1) near |= Spread(x + 1, k);
+
+        return ~near & Valid(k);
+    }
+
+    /**
+     * Returns the spaces of a long that would keep a region opening: no mines nearby, hidden and
+     * without a flag.
+     */
+    private long Open(int x, int k) {
+        int i = x * words + k;
+
+        return Zero(x, k) & ~revealed[i] & ~flags[i];
+    }
+
+    /**
+     * Extends each seed towards the higher bits while the spaces are open, in 6 steps.
+     * 
+     * @param seeds Spaces the fill starts from, all of them open.
+     * @param open Spaces the fill can go through.
+     */
+    private static long Fill_Up(long seeds, long open) {
+        seeds |= open & (seeds << 1);
+        open &= open << 1;
+        seeds |= open & (seeds << 2);
+        open &= open << 2;
+        seeds |= open & (seeds << 4);
+        open &= open << 4;
+        seeds |= open & (seeds << 8);
+        open &= open << 8;
+        seeds |= open & (seeds << 16);
+        open &= open << 16;
+        return seeds | (open & (seeds << 32));
+    }
+
+    /**
+     * Extends each seed towards the lower bits while the spaces are open, in 6 steps.
+     * 
+     * @param seeds Spaces the fill starts from, all of them open.
+     * @param open Spaces the fill can go through.
+     */
+    private static long Fill_Down(long seeds, long open) {
+        seeds |= open & (seeds >>> 1);
+        open &= open >>> 1;
+        seeds |= open & (seeds >>> 2);
+        open &= open >>> 2;
+        seeds |= open & (seeds >>> 4);
+        open &= open >>> 4;
+        seeds |= open & (seeds >>> 8);
+        open &= open >>> 8;
+        seeds |= open & (seeds >>> 16);
+        open &= open >>> 16;
+        return seeds | (open & (seeds >>> 32));
+    }
+
+    /**
+     * Reveals a hidden space without a flag and, if it has no mines nearby, its whole region:
+     * every space reached from it through spaces with no mines nearby that weren't revealed
+     * before, except the flagged ones. These are the spaces Board's cascade reveals, in a
+     * different order.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @param spaces List where the revealed spaces are written from index 0, with the line in
+     * the upper 32 bits and the column in the lower 32 bits.
+     * @return  The list, grown if it was too short. Opened_Count gives the number of spaces.
+     */
+    public long[] Flood(int x, int y, long spaces[]) {
+        int k = y >>> 6;
+        long bit = 1L << y;
+
+        opened = 0;
+        revealed[x * words + k] |= bit;
+        spaces = Append(spaces, x, k, bit);
+
+        if ((Zero(x, k) & bit) == 0) return spaces;
+
+        frontier[x * words + k] = bit;
+        Push(x);
+
+        while (pending_count > 0) {
+            int line = pending[pending_head];
+            pending_head = (pending_head + 1 == rows) ? 0 : pending_head + 1;
+            pending_count--;
+            queued[line] = false;
+
+            spaces = Expand(line, spaces);
+        }
+
+        return spaces;
+    }
+
+    /**
+     * Returns the number of spaces revealed by the last Flood.
+     */
+    public int Opened_Count() {
+        return this.opened;
+    }
+
+    /**
+     * Queues a line whose frontier has spaces, unless it's already queued.
+     */
+    private void Push(int line) {
+        if (queued[line]) return ;
+
+        queued[line] = true;
+        pending[(pending_head + pending_count) % rows] = line;
+        pending_count++;
+    }
+
+    /**
+     * Adds spaces of a long to the list of revealed spaces.
+     */
+    private long[] Append(long spaces[], int line, int k, long bits) {
+        while (bits != 0) {
+            if (opened == spaces.length) spaces = Arrays.copyOf(spaces, opened * 2);
+
+            spaces[opened++] = ((long) line << 32) | ((k << 6) + Long.numberOfTrailingZeros(bits));
+            bits &= bits - 1;
+        }
+
+        return spaces;
+    }
+
+    /**
+     * Opens the region around the frontier of a line: the frontier is first spread along the
+     * line, up and then down, through the open spaces, carrying from one long to the next, and
+     * then every neighbour of the spread frontier is revealed. Neighbours with no mines nearby on
+     * the lines above and below become their frontier.
+     */
+    private long[] Expand(int line, long spaces[]) {
+        int base = line * words;
+        long carry = 0;
+
+        for (int k = 0; k < words; k++) {
+            long seeds = frontier[base + k] | carry;
+            if (seeds == 0) continue;
+
+            long open = Open(line, k) | frontier[base + k];
+            long fill = Fill_Up(seeds & open, open);
+
+            frontier[base + k] = fill;
+            carry = fill >>> 63;
+        }
+
+        carry = 0;
+
+        for (int k = words - 1; k >= 0; k--) {
+            long seeds = frontier[base + k] | carry;
+            if (seeds == 0) continue;
+
+            long open = Open(line, k) | frontier[base + k];
+            long fill = Fill_Down(seeds & open, open);
+            long fresh = fill & ~revealed[base + k];
+
+            frontier[base + k] = fill;
+            revealed[base + k] |= fresh;
+            spaces = Append(spaces, line, k, fresh);
+            carry = fill << 63;
+        }
+
+        long previous = 0;
+
+        for (int k = 0; k < words; k++) {
+            long current = frontier[base + k];
+            long next = (k + 1 < words) ? frontier[base + k + 1] : 0;
+
+            if ((previous | current | next) != 0) {
+                long around = (current | (current << 1) | (current >>> 1) | (previous >>> 63) |
+                               (next << 63)) & Valid(k);
+
+                if (line > 0) spaces = Reveal_Around(line - 1, k, around, spaces);
+                spaces = Reveal_Around(line, k, around, spaces);
+                if (line < rows - 1) spaces = Reveal_Around(line + 1, k, around, spaces);
+            }
+
+            frontier[base + k] = 0;
+            previous = current;
+        }
+
+        return spaces;
+    }
+
+    /**
+     * Reveals the hidden spaces without a flag among the neighbours of a frontier, in one long of
+     * a line, and adds the ones with no mines nearby to the line's frontier.
+     */
+    private long[] Reveal_Around(int line, int k, long around, long spaces[]) {
+        int i = line * words + k;
+        long fresh = around & ~revealed[i] & ~flags[i];
+        if (fresh == 0) return spaces;
+
+        long zero = fresh & Zero(line, k);
+        revealed[i] |= fresh;
+
+        if (zero != 0) {
+            frontier[i] |= zero;
+            Push(line);
+        }
+
+        return Append(spaces, line, k, fresh);
+    }
+}
@@ -1,412 +1,1138 @@
-/**
- * MINESWEEPER GAME
- * 
- * Author: Andre Kenji Sato
- * Version: Beta 1.0
- * 
- * (N) No rights reserved. 2022.
- */
-
-// For Beta 1.1: Show all nearby '*' spaces and numbered spaces if the inputted space is '*'.
-import java.util.Random;
-import java.util.Scanner;
-
-/**
- * Board class. 
- * Manages the game board.
- */
-public class Board {
-    private int size;
-    private int quant_mines;
-    private char answer_board[][];
-    private char board[][];
-    private int mines[][];
-    private int difficulty;
-
-    /**
-     * Sets a blank board and answerboard.
-     */
-    private void Blank_Boards() {
-        for (int i = 0; i < this.size; i++) {
-            for (int j = 0; j < this.size; j++) {
-                answer_board[i][j] = '0';
-                board[i][j] = '?';
-            }
-        }
-    }
-
-    /**
-     * Checks if the line (x) and column (y) coordinates given by the function Set_Mines are 
-     * unique, meaning that they aren't of a space which already has a mine.
-     * 
-     * @param mines_placed  The number of mines already placed on the board.
-     * @param x The generated line coordinates by Set_Mines.
-     * @param y The generated column coordinates by Set_Mines.
-     * @return  Whether or not the given coordinates are unique.
-     */
-    private boolean Valid_Mine_Coord(int mines_placed, int x, int y) {
-        if (mines_placed == 0) return true;
-
-        for (int i = 0; i < mines_placed; i++) {
-            if (mines[i][0] == x && mines[i][1] == y) return false;
-        }
-
-        return true;
-    }
-
-    /**
-     * Updates the answer_board, with X indicating a mine and numbers indicating the number of 
-     * mines near a space.
-     * 
-     * @param x The line where the mine is located.
-     * @param y The column where the mine is located.
-     */
-    private void Update_Answer(int x, int y) {
-        answer_board[x][y] = 'X';
-
-        for (int i = x - 1; i <= x + 1; i++) {
-            for (int j = y - 1; j <= y + 1; j++) {
-                if (i == -1 || i == this.size) break;
-                if (j != -1 && j != this.size && answer_board[i][j] != 'X') answer_board[i][j]++;
-            }
-        }
-    }
-
-    /**
-     * Sets mines coordinates, validates whether they are unique and updates the answer board. The 
-     * mines[i][0] stores the x position and the mines[i][1] stores the y position.
-     */
-    private void Set_Mines() {
-        Random rng = new Random();
-        boolean valid_pos = false;
-
-        for (int i = 0; i < this.quant_mines; i++) {
-            do {
-                mines[i][0] = rng.nextInt(this.size);
-                mines[i][1] = rng.nextInt(this.size);
-                valid_pos = Valid_Mine_Coord(i, mines[i][0], mines[i][1]);
-            } while (valid_pos == false);
-
-            Update_Answer(mines[i][0], mines[i][1]);
-            valid_pos = false;
-        }
-    }
-
-    /**
-     * Sets the mine density on the board, which determines the number of mines in the board. The 
-     * mine density per difficulty is as follows:
-     * 
-     * Difficulty 0: From 0.125 to 0.15.
-     * Difficulty 1: From 0.125 to 0.15.
-     * Difficulty 2: From 0.15 to 0.2.
-     * Difficulty 3: From 0.2 to 0.25.
-     * Difficulty 4: From 0.25 to 0.35.
-     * 
-     * @param difficulty    The inputted difficulty by the user.
-     * @return  Mine density. Returns -1, if difficulty is not between 0 and 4.
-     */
-    private double Set_Mine_Density(int difficulty) {
-        Random rng = new Random();
-
-        switch(difficulty) {
-            case 1:
-            case 2:
-                return 0.125 + 0.0025 * rng.nextInt(11);
-            case 3:
-                return 0.15 + 0.005 * rng.nextInt(11);
-            case 4:
-                return 0.2 + 0.005 * rng.nextInt(11);
-            case 5:
-                return 0.25 + 0.01 * rng.nextInt(11);
-        }
-
-        return -1;
-    }
-
-    /**
-     * Sets a custom difficulty.
-     * 
-     * @param scan Scanner used for user inputs.
-     */
-    public void Set_Custom_Difficulty(Scanner scan) {
-        System.out.println('\n' + "Custom Difficulty selected..." + '\n');
-        boolean valid_input = false;
-
-        while (valid_input == false) {
-            System.out.println("What's the desired board size?" + '\n' +
-                                "The board will be a square with the inputed size." + '\n' +
-                                "The size must be between 5 and 99.");
-            String size_input = scan.next();
-
-            if (size_input.matches("\\d+") == false) {
-                System.out.println("Invalid size. Please insert a new value.");
-            } else {
-                this.size = Integer.parseInt(size_input);
-
-                if (this.size < 5 || this.size > 99) {
-                    System.out.println('\n' + "The board can't be of size " + this.size + 
-                                       ". Please insert a new value." + '\n');
-                } else {
-                    valid_input = true;
-                }
-            }
-        }
-
-        board = new char[this.size][this.size];
-        answer_board = new char[this.size][this.size];
-        mines = new int[quant_mines][2];
-        Blank_Boards();
-        Set_Mines();
-    }
-
-    /**
-     * Sets the board and the number of mines given the desired level of difficulty by the player,
-     * ranging from 0 (the easiest) to 4 (the hardest).
-     * 
-     * @param difficulty    Integer with the desired difficulty.
-     * @return  If the inputted difficulty is within 0 to 4. If Set_Mines_Density returns -1 
-     * (ERROR CODE 1), immediatily returns false.
-     */
-    public boolean Set_Difficulty(int difficulty) {
-        double mine_density;
-        
-        switch(difficulty) {
-            case 1:
-                this.size = 15;
-                break;
-            case 2:
-                this.size = 20;
-                break;
-            case 3:
-                this.size = 25;
-                break;
-            case 4:
-                this.size = 30;
-                break;
-            case 5:
-                this.size = 35;
-                break;
-        }
-
-        if (difficulty < 1 || difficulty > 5) return false;
-
-        board = new char[this.size][this.size];
-        answer_board = new char[this.size][this.size];
-        mine_density = Set_Mine_Density(difficulty);
-
-        if (mine_density == -1) {
-            System.err.println("ERROR CODE 1: Invalid mine density!");
-            System.err.println("If you see this error, contact the developer immediatily.");
-            return false;
-        }
-
-        this.difficulty = difficulty;
-        this.quant_mines = (int) (Math.pow(this.size, 2) * mine_density);
-        mines = new int[quant_mines][2];
-        Blank_Boards();
-        Set_Mines();
-        return true;
-    }
-
-    /**
-     * Checks if the inputted coordinates are within the board's range (between 0 and the size of 
-     * the board - 1).
-     * 
-     * @param x Line coordinates of the space.
-     * @param y Column coordinates of the space.
-     * @return  If both coordinates are within range.
-     */
-    public boolean Valid_Coords(int x, int y) {
-        if (x < 0 || x >= this.size) return false;
-        if (y < 0 || y >= this.size) return false;
-
-        return true;
-    }
-
-    /**
-     * Clears a space, revealing it to the player. If it doesn't have a mine and any mines nearby
-     * (indicated by a '0' in answer_board), display a '*' and also makes the neighbouring spaces
-     * visible. If the inputted coordinates are of a space that was already revealed, the function 
-     * informs the player to input different coordinates. If it has a flag, it tells the player to
-     * remove the flag in order to clear the space.
-     * 
-     * @param x Line coordinates of the space.
-     * @param y Column coordinates of the space.
-     */
-    public void Clear_Space(int x, int y) {
-        if (board[x][y] == '*' || (board[x][y] >= '1' && board[x][y] <= '9')) {
-            System.out.println("Row [" + x + "], Column [" + y + "] was already revealed.");
-            System.out.println("Please insert another set of coordinates.");
-            return ;
-        }
-
-        if (board[x][y] == 'F') {
-            System.out.println("Row [" + x + "], Column [" + y + "] contains a flag.");
-            System.out.println("Please remove the flag before clearing the space.");
-            return ;
-        }
-
-        if ((answer_board[x][y] >= '1' && answer_board[x][y] <= '9') || 
-            answer_board[x][y] == 'X') {
-            board[x][y] = answer_board[x][y];
-            return ;
-        }
-
-        for (int i = x - 1; i <= x + 1; i++) {
-            for (int j = y - 1; j <= y + 1; j++) {
-                if (i == -1 || i == this.size || j == this.size) break;
-                if (j == -1) j++;
-
-                if (answer_board[i][j] == '0') {
-                    board[i][j] = '*';
-                } else {
-                    board[i][j] = answer_board[i][j];
-                }
-            }
-        }
-    }
-
-    /**
-     * Adds a flag to a space. It the space has already been revealed, the function informs the 
-     * player that a flag cannot be placed on a cleared space. If it already has a flag, the
-     * function informs the player of it.
-     * 
-     * @param x Line coordinates of the space.
-     * @param y Column coordinates of the space.
-     */
-    public void Add_Flag(int x, int y) {
-        if (board[x][y] == '*' || (board[x][y] >= '1' && board[x][y] <= '9')) {
-            System.out.println("Row [" + x + "], Column [" + y + "] was already revealed.");
-            System.out.println("Cannot insert a flag in this space.");
-            return ;
-        }
-
-        if (board[x][y] == 'F') {
-            System.out.println("Row [" + x + "], Column [" + y + "] already contains a flag.");
-            return ;
-        }
-        
-        board[x][y] = 'F';
-    }
-
-    /**
-     * Removes a flag from a space. If it doesn't have a flag, the function informs the player to 
-     * input different coordinates.
-     * 
-     * @param x Line coordinates of the space.
-     * @param y Column coordinates of the space.
-     */
-    public void Remove_Flag(int x, int y) {
-        if (board[x][y] != 'F') {
-            System.out.println("Row [" + x + "], Column [" + y + "] doesn't contain a flag.");
-            System.out.println("Please insert another set of coordinates.");
-            return ;
-        }
-
-        board[x][y] = '?';
-    }
-
-    /**
-     * Checks if the player has inputted coordinates which contained a mine. If so, he/she loses
-     * the game.
-     * 
-     * @param x Line coordinates of the space.
-     * @param y Column coordinates of the space.
-     * @return  If the square contained a mine.
-     */
-    public boolean Defeat(int x, int y) {
-        return (board[x][y] == 'X');
-    }
-
-    /**
-     * Checks if the player has cleared all spaces without a mine and added a flag to all spaces
-     * with a mine. If so, he/she wins the game.
-     * 
-     * @return If all spaces without a mine have been cleared.
-     */
-    public boolean Victory() {
-        for (int i = 0; i < this.size; i++) {
-            for (int j = 0; j < this.size; j++) {
-                if (board[i][j] == '?' && answer_board[i][j] != 'X') return false;
-                if (board[i][j] != 'F' && answer_board[i][j] == 'X') return false;
-            }
-        }
-
-        return true;
-    }
-
-    /**
-     * Prints the gameboard with line (x) and column (y) indexes.
-     */
-    public void Print_Board() {
-        System.out.print("// ");
-
-        for (int y = 0; y < this.size; y++) {
-            if (y < 10) System.out.print("0");
-            System.out.print(y + " ");
-        }
-
-        System.out.println("");
-
-        for (int x = 0; x < this.size; x++) {
-            if (x < 10) System.out.print("0");
-            System.out.print(x + " ");
-
-            for (int y = 0; y < this.size; y++) {
-                System.out.print(" " + board[x][y] + " ");
-            }
-
-            System.out.println("");
-        }
-    }
-
-    /**
-     * Prints the answer_board with line (x) and column (y) indexes.
-     */
-    public void Print_AnswerBoard() {
-        System.out.print("// ");
-
-        for (int y = 0; y < this.size; y++) {
-            if (y < 10) System.out.print("0");
-            System.out.print(y + " ");
-        }
-
-        System.out.println("");
-
-        for (int x = 0; x < this.size; x++) {
-            if (x < 10) System.out.print("0");
-            System.out.print(x + " ");
-
-            for (int y = 0; y < this.size; y++) {
-                if (answer_board[x][y] == '0') {
-                    System.out.print(" * ");
-                } else {
-                    System.out.print(" " + answer_board[x][y] + " ");
-                }
-            }
-
-            System.out.println("");
-        }
-    }
-
-    /**
-     * Returns the board's size.
-     */
-    public int Display_Size() {
-        return this.size;
-    }
-
-    /**
-     * Returns the game's difficulty.
-     */
-    public int Display_Difficulty() {
-        return this.difficulty;
-    }
-
-    /**
-     * Returns the number of mines.
-     */
-    public int Display_Quant_Mines() {
-        return this.quant_mines;
-    }
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Board class. 
+ * Manages the game board.
+ * 
+ * Every space is stored as one byte of a CellStore. The lower 4 bits store the number of mines 
+ * nearby, and the MINE, REVEALED and FLAG bits store the state of the space. Boards with more than
+ * LARGE_BOARD_SPACES spaces use a TiledCellStore, which only allocates the parts of the board that
+ * are played and places their mines at that moment.
+ * 
+ * With -Dminesweeper.store=bits, or Set_Bit_Board, boards of up to BIT_BOARD_SPACES spaces use a
+ * BitCellStore instead, which keeps the spaces as bit planes and opens regions 64 spaces at a 
+ * time. The mines are the same whichever store is used, so replays and saved games don't depend
+ * on it: large bit boards place their mines tile after tile, like a TiledCellStore.
+ * 
+ * The mines are only placed on the first Clear_Space, away from the cleared space and its 
+ * neighbours, so the first move is always safe and opens a region. The number of mines nearby is
+ * only counted when a space is revealed, so setting a board costs nothing but the blank store.
+ */
+public class Board {
+    static final int NEARBY = 0x0F;
+    static final int MINE = 0x10;
+    static final int REVEALED = 0x20;
+    static final int FLAG = 0x40;
+
+    static final int MIN_SIZE = 5;
+    static final int FIRST_MOVE_SPACES = 9;
+    static final int MAX_SIZE = 100000;
+    static final long LARGE_BOARD_SPACES = 1 << 24;
+    static final long BIT_BOARD_SPACES = 1 << 27;
+    static final int PRINT_LIMIT = 100;
+    private static final boolean DEBUG = Boolean.getBoolean("minesweeper.debug");
+    private static final boolean USE_BITS = "bits".equals(System.getProperty("minesweeper.store"));
+
+    private int rows;
+    private int columns;
+    private long quant_mines;
+    private CellStore store;
+    private boolean large_board;
+    private boolean bit_board;
+    private boolean use_bits = USE_BITS;
+    private boolean mines_placed;
+    private long first_move;
+    private int difficulty;
+    private final Random rng = new Random();
+    private long seed;
+    private boolean seed_set = false;
+    private long reveal_queue[] = new long[16];
+    private int reveal_head, reveal_tail;
+    private long hidden_safe_spaces;
+    private long flagged_mines;
+    private int last_move_x, last_move_y;
+    private long changed[] = new long[16];
+    private final int excluded[] = new int[FIRST_MOVE_SPACES];
+    private int changed_count;
+    private Replay.Recorder recorder;
+    private BoardRenderer renderer = New_Renderer(System.out);
+
+    /**
+     * Creates the renderer of the board, with the viewport and render mode given by the system
+     * properties.
+     * 
+     * @param out Stream where the board is printed.
+     */
+    private static BoardRenderer New_Renderer(OutputStream out) {
+        return new BoardRenderer(out, Integer.getInteger("minesweeper.viewport", PRINT_LIMIT),
+                                 "diff".equals(System.getProperty("minesweeper.render")));
+    }
+
+    /**
+     * Sets a blank board in place. Small boards reuse the previous FlatCellStore when the board 
+     * size didn't change, clearing it with one bulk fill, and otherwise give it back to the 
+     * CellStorePool and take one of the new size from it. Large boards get a new TiledCellStore 
+     * for the current seed. Bit boards reuse the previous BitCellStore of the same size, or get a
+     * new one.
+     * 
+     * @param bits If the board should use a BitCellStore, when it's small enough for one.
+     */
+    private void Blank_Boards(boolean bits) {
+        long spaces = (long) this.rows * this.columns;
+        large_board = spaces > LARGE_BOARD_SPACES;
+        bit_board = bits && spaces <= BIT_BOARD_SPACES;
+
+        if (bit_board) {
+            if (store instanceof BitCellStore && 
+                ((BitCellStore) store).Same_Size(this.rows, this.columns)) {
+                store.Clear();
+            } else {
+                CellStorePool.Give(store);
+                store = new BitCellStore(this.rows, this.columns);
+            }
+        } else if (large_board) {
+            CellStorePool.Give(store);
+            store = new TiledCellStore(this.rows, this.columns, this.quant_mines, this.seed);
+        } else if (store instanceof FlatCellStore && 
+                   ((FlatCellStore) store).Same_Size(this.rows, this.columns)) {
+            store.Clear();
+        } else {
+            CellStorePool.Give(store);
+            store = CellStorePool.Take(this.rows, this.columns);
+        }
+
+        this.mines_placed = false;
+        this.first_move = 0;
+        this.hidden_safe_spaces = spaces - this.quant_mines;
+        this.flagged_mines = 0;
+        this.last_move_x = 0;
+        this.last_move_y = 0;
+        this.changed_count = 0;
+        if (recorder != null) recorder.Begin();
+    }
+
+    /**
+     * Counts the mines in the neighbouring spaces. Called when a space is revealed, or shown in the
+     * answer board.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  The number of mines nearby.
+     */
+    private int Count_Nearby(int x, int y) {
+        if (bit_board) return ((BitCellStore) store).Count_Nearby(x, y);
+
+        int last_x = Math.min(x + 1, this.rows - 1);
+        int last_y = Math.min(y + 1, this.columns - 1);
+        int nearby = 0;
+
+        for (int i = Math.max(x - 1, 0); i <= last_x; i++) {
+            for (int j = Math.max(y - 1, 0); j <= last_y; j++) {
+                if ((i != x || j != y) && (store.Get(i, j) & MINE) != 0) nearby++;
+            }
+        }
+
+        return nearby;
+    }
+
+    /**
+     * Returns the spaces the first move keeps free of mines, the cleared space and its neighbours,
+     * that fall inside an area of the board. The spaces of the area are numbered line after line,
+     * from 0 at (first_x, first_y).
+     * 
+     * @param x Line coordinates of the first move.
+     * @param y Column coordinates of the first move.
+     * @param first_x First line of the area.
+     * @param first_y First column of the area.
+     * @param height Number of lines of the area.
+     * @param width Number of columns of the area.
+     * @return  The numbers of the excluded spaces inside the area, in increasing order.
+     */
+    static int[] Excluded_Spaces(int x, int y, int first_x, int first_y, int height, int width) {
+        int excluded[] = new int[FIRST_MOVE_SPACES];
+        int count = Excluded_Spaces(x, y, first_x, first_y, height, width, excluded);
+
+        return Arrays.copyOf(excluded, count);
+    }
+
+    /**
+     * Writes the spaces the first move keeps free of mines into an array, as Excluded_Spaces
+     * returns them, so boards can reuse the array from game to game.
+     * 
+     * @param excluded Array of at least FIRST_MOVE_SPACES, where the spaces are written.
+     * @return  The number of excluded spaces inside the area.
+     */
+    static int Excluded_Spaces(int x, int y, int first_x, int first_y, int height, int width,
+                               int excluded[]) {
+        int count = 0;
+
+        for (int i = Math.max(x - 1, first_x); i <= Math.min(x + 1, first_x + height - 1); i++) {
+            for (int j = Math.max(y - 1, first_y); j <= Math.min(y + 1, first_y + width - 1); j++) {
+                excluded[count++] = (i - first_x) * width + (j - first_y);
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the index of the t-th space that isn't excluded.
+     * 
+     * @param t Index among the spaces that aren't excluded.
+     * @param excluded Excluded indexes, in increasing order.
+     * @return  The index among all spaces.
+     */
+    static int Skip_Excluded(int t, int excluded[]) {
+        return Skip_Excluded(t, excluded, excluded.length);
+    }
+
+    /**
+     * Returns the index of the t-th space that isn't excluded.
+     * 
+     * @param t Index among the spaces that aren't excluded.
+     * @param excluded Excluded indexes, in increasing order.
+     * @param count Number of excluded indexes in the array.
+     * @return  The index among all spaces.
+     */
+    static int Skip_Excluded(int t, int excluded[], int count) {
+        for (int i = 0; i < count; i++) {
+            if (excluded[i] <= t) t++;
+        }
+
+        return t;
+    }
+
+    /**
+     * Places quant_mines mines on distinct random spaces, away from the first move, using Floyd's
+     * sampling algorithm: for each of the last quant_mines space indexes j, a random index t 
+     * between 0 and j is drawn, and j itself is used instead if t already has a mine. Every set of
+     * spaces is equally likely, each mine takes exactly one draw no matter the mine density, and 
+     * the MINE bits of the spaces are the only bookkeeping needed. The indexes only count the 
+     * spaces outside the first move's neighbourhood, and Skip_Excluded maps them to the board. 
+     * Bit boards make the same draws in BitCellStore.Place_Mines, straight into the mine plane.
+     * 
+     * Large boards hand the first move to TiledCellStore, which places the mines of each tile the 
+     * first time it's touched, or to BitCellStore, which places the same mines all at once. Mines
+     * placed under flags put before the first move are counted by Mines_Under_Flags.
+     * 
+     * @param x Line coordinates of the first move.
+     * @param y Column coordinates of the first move.
+     */
+    private void Set_Mines(int x, int y) {
+        mines_placed = true;
+        first_move = ((long) x << 32) | y;
+
+        if (large_board && bit_board) {
+            Mines_Under_Flags(((BitCellStore) store).Place_Tiled_Mines(quant_mines, seed, x, y));
+            return ;
+        }
+
+        if (large_board) {
+            Mines_Under_Flags(((TiledCellStore) store).Place_Mines(x, y));
+            return ;
+        }
+
+        int count = Excluded_Spaces(x, y, 0, 0, this.rows, this.columns, excluded);
+
+        if (bit_board) {
+            BitCellStore bits = (BitCellStore) store;
+            Mines_Under_Flags(bits.Place_Mines(rng, (int) this.quant_mines, excluded, count));
+            return ;
+        }
+
+        int spaces = this.rows * this.columns - count;
+
+        for (int j = spaces - (int) this.quant_mines; j < spaces; j++) {
+            int t = Skip_Excluded(rng.nextInt(j + 1), excluded, count);
+            if ((store.Get(t / this.columns, t % this.columns) & MINE) != 0) {
+                t = Skip_Excluded(j, excluded, count);
+            }
+
+            int cell = store.Get(t / this.columns, t % this.columns);
+            if ((cell & FLAG) != 0) Mines_Under_Flags(1);
+            store.Set(t / this.columns, t % this.columns, cell | MINE);
+        }
+    }
+
+    /**
+     * Counts mines placed under flags put before the first move. Add_Flag took those spaces out of
+     * hidden_safe_spaces, since they had no mine then, so they're given back to it as well as 
+     * counted in flagged_mines.
+     * 
+     * @param count Number of mines placed on flagged spaces.
+     */
+    private void Mines_Under_Flags(long count) {
+        flagged_mines += count;
+        hidden_safe_spaces += count;
+    }
+
+    /**
+     * Reseeds the random number generator for a new board. Uses the seed given to Set_Seed, if 
+     * any, or draws a new one otherwise.
+     */
+    private void Next_Seed() {
+        if (seed_set == false) seed = rng.nextLong();
+
+        seed_set = false;
+        rng.setSeed(seed);
+    }
+
+    /**
+     * Sets the seed of the next board, so the same mine density and mine positions can be 
+     * generated again. If Set_Difficulty or Set_Custom_Board then fails, the seed is dropped, so
+     * it's never used by a later board.
+     * 
+     * @param seed The seed, as returned by Display_Seed.
+     */
+    public void Set_Seed(long seed) {
+        this.seed = seed;
+        this.seed_set = true;
+    }
+
+    /**
+     * Sets the mine density on the board, which determines the number of mines in the board. The 
+     * mine density per difficulty is as follows:
+     * 
+     * Difficulty 0: From 0.125 to 0.15.
+     * Difficulty 1: From 0.125 to 0.15.
+     * Difficulty 2: From 0.15 to 0.2.
+     * Difficulty 3: From 0.2 to 0.25.
+     * Difficulty 4: From 0.25 to 0.35.
+     * 
+     * @param difficulty    The inputted difficulty by the user.
+     * @return  Mine density. Returns -1, if difficulty is not between 0 and 4.
+     */
+    private double Set_Mine_Density(int difficulty) {
+        switch(difficulty) {
+            case 1:
+            case 2:
+                return 0.125 + 0.0025 * rng.nextInt(11);
+            case 3:
+                return 0.15 + 0.005 * rng.nextInt(11);
+            case 4:
+                return 0.2 + 0.005 * rng.nextInt(11);
+            case 5:
+                return 0.25 + 0.01 * rng.nextInt(11);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Sets a custom board, with the number of rows, columns and mines chosen by the player. Boards
+     * with more than LARGE_BOARD_SPACES spaces are played in the large board mode.
+     * 
+     * @param rows Number of rows, between MIN_SIZE and MAX_SIZE.
+     * @param columns Number of columns, between MIN_SIZE and MAX_SIZE.
+     * @param quant_mines Number of mines, between 1 and rows * columns - FIRST_MOVE_SPACES, so the 
+     * first move and its neighbours can always be kept free of mines.
+     * @return  If the board could be set with the given values.
+     */
+    public boolean Set_Custom_Board(int rows, int columns, long quant_mines) {
+        if (rows < MIN_SIZE || rows > MAX_SIZE || columns < MIN_SIZE || columns > MAX_SIZE ||
+            quant_mines < 1 || quant_mines > (long) rows * columns - FIRST_MOVE_SPACES) {
+            seed_set = false;
+            return false;
+        }
+
+        this.rows = rows;
+        this.columns = columns;
+        this.quant_mines = quant_mines;
+        this.difficulty = 0;
+
+        Next_Seed();
+        Blank_Boards(use_bits);
+        return true;
+    }
+
+    /**
+     * Sets the board and the number of mines given the desired level of difficulty by the player,
+     * ranging from 0 (the easiest) to 4 (the hardest).
+     * 
+     * @param difficulty    Integer with the desired difficulty.
+     * @return  If the inputted difficulty is within 0 to 4. If Set_Mines_Density returns -1 
+     * (ERROR CODE 1), immediatily returns false.
+     */
+    public boolean Set_Difficulty(int difficulty) {
+        double mine_density;
+        
+        switch(difficulty) {
+            case 1:
+                this.rows = 15;
+                this.columns = 15;
+                break;
+            case 2:
+                this.rows = 20;
+                this.columns = 20;
+                break;
+            case 3:
+                this.rows = 25;
+                this.columns = 25;
+                break;
+            case 4:
+                this.rows = 30;
+                this.columns = 30;
+                break;
+            case 5:
+                this.rows = 35;
+                this.columns = 35;
+                break;
+        }
+
+        if (difficulty < 1 || difficulty > 5) {
+            seed_set = false;
+            return false;
+        }
+
+        Next_Seed();
+        mine_density = Set_Mine_Density(difficulty);
+
+        if (mine_density == -1) {
+            System.err.println("ERROR CODE 1: Invalid mine density!");
+            System.err.println("If you see this error, contact the developer immediatily.");
+            return false;
+        }
+
+        this.difficulty = difficulty;
+        this.quant_mines = (long) (this.rows * this.columns * mine_density);
+        Blank_Boards(use_bits);
+        return true;
+    }
+
+    /**
+     * Moves a mine to a space without one. Used by NoGuessGenerator to repair layouts that can't 
+     * be solved without guessing, after the mines were placed. Not available on large boards.
+     * 
+     * @param from_x Line of the mine.
+     * @param from_y Column of the mine.
+     * @param to_x Line of the new position.
+     * @param to_y Column of the new position.
+     * @return  If the mine was moved.
+     */
+    public boolean Move_Mine(int from_x, int from_y, int to_x, int to_y) {
+        if (large_board) return false;
+        if ((store.Get(from_x, from_y) & MINE) == 0 || (store.Get(to_x, to_y) & MINE) != 0) {
+            return false;
+        }
+
+        store.Set(from_x, from_y, store.Get(from_x, from_y) & ~MINE);
+        store.Set(to_x, to_y, store.Get(to_x, to_y) | MINE);
+        return true;
+    }
+
+    /**
+     * Hides every space and removes every flag, keeping the mines where they are, so the same 
+     * board can be played again from the start. Not available on large boards.
+     * 
+     * @return  If the board was restarted.
+     */
+    public boolean Restart() {
+        if (large_board) return false;
+
+        if (bit_board) {
+            ((BitCellStore) store).Hide_All();
+        } else {
+            for (int x = 0; x < this.rows; x++) {
+                for (int y = 0; y < this.columns; y++) {
+                    store.Set(x, y, store.Get(x, y) & MINE);
+                }
+            }
+        }
+
+        this.hidden_safe_spaces = (long) this.rows * this.columns - this.quant_mines;
+        this.flagged_mines = 0;
+        this.last_move_x = 0;
+        this.last_move_y = 0;
+        this.changed_count = 0;
+        if (recorder != null) recorder.Begin();
+        return true;
+    }
+
+    /**
+     * Copies the size, difficulty, seed and mines of another board, which must not be a large 
+     * board, and starts it from scratch. If the source's mines were already placed, the copy 
+     * keeps them, and its first move isn't treated differently. Used to play the boards made by 
+     * NoGuessGenerator.
+     * 
+     * @param source The board to be copied.
+     * @return  If the board was copied.
+     */
+    public boolean Copy_Layout(Board source) {
+        if (source.large_board) return false;
+
+        this.rows = source.rows;
+        this.columns = source.columns;
+        this.quant_mines = source.quant_mines;
+        this.difficulty = source.difficulty;
+        this.seed = source.seed;
+
+        Blank_Boards(use_bits);
+
+        if (store instanceof FlatCellStore && source.store instanceof FlatCellStore) {
+            ((FlatCellStore) store).Copy_From((FlatCellStore) source.store);
+        } else if (store instanceof BitCellStore && source.store instanceof BitCellStore) {
+            ((BitCellStore) store).Copy_From((BitCellStore) source.store);
+        } else {
+            for (int x = 0; x < this.rows; x++) {
+                for (int y = 0; y < this.columns; y++) {
+                    store.Set(x, y, source.store.Get(x, y) & MINE);
+                }
+            }
+        }
+
+        this.mines_placed = source.mines_placed;
+        return Restart();
+    }
+
+    /**
+     * Sets a board whose mines are already placed, e.g. a board made by NoGuessGenerator that is
+     * played again from a Replay, and starts it from scratch. Not available on large boards.
+     * 
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param difficulty Difficulty of the board, or 0 for a custom one.
+     * @param seed Seed of the board, as returned by Display_Seed.
+     * @param mines The mines, as returned by Display_Layout.
+     * @return  If the board was set.
+     */
+    public boolean Set_Layout(int rows, int columns, int difficulty, long seed, long mines[]) {
+        if (rows < MIN_SIZE || rows > MAX_SIZE || columns < MIN_SIZE || columns > MAX_SIZE) {
+            return false;
+        }
+
+        if ((long) rows * columns > LARGE_BOARD_SPACES) return false;
+        if (mines.length != (rows * columns + 63) / 64) return false;
+
+        this.rows = rows;
+        this.columns = columns;
+        this.difficulty = difficulty;
+        this.seed = seed;
+        this.quant_mines = 0;
+
+        for (long word : mines) this.quant_mines += Long.bitCount(word);
+
+        Blank_Boards(use_bits);
+
+        for (int i = 0; i < rows * columns; i++) {
+            if ((mines[i >>> 6] & (1L << i)) != 0) store.Set(i / columns, i % columns, MINE);
+        }
+
+        this.mines_placed = true;
+        return Restart();
+    }
+
+    /**
+     * Returns where the mines of the board are, if they were already placed. The spaces are
+     * numbered line after line, and space i has a mine if bit i % 64 of word i / 64 is set.
+     * 
+     * @return  The mines, or null if they weren't placed yet or the board is a large board.
+     */
+    public long[] Display_Layout() {
+        if (mines_placed == false || large_board) return null;
+
+        long mines[] = new long[(this.rows * this.columns + 63) / 64];
+
+        for (int i = 0; i < this.rows * this.columns; i++) {
+            if ((store.Get(i / this.columns, i % this.columns) & MINE) != 0) {
+                mines[i >>> 6] |= 1L << i;
+            }
+        }
+
+        return mines;
+    }
+
+    /**
+     * Sets a board to be restored from a Snapshot, with every space blank. The Snapshot then
+     * writes the spaces into the store's blocks and calls Restore_Revealed and Restore_Counters.
+     * The mines aren't placed again: a large board only learns its first move, so the tiles that
+     * weren't saved get the same mines as before when they're touched. A game is resumed on the 
+     * same kind of store it was saved from.
+     * 
+     * A restored game isn't recorded by the Recorder, since the Replay would lack its first moves.
+     * 
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param quant_mines Number of mines.
+     * @param difficulty Difficulty of the board, or 0 for a custom one.
+     * @param seed Seed of the board.
+     * @param mines_placed If the mines were placed, i.e. the first move was made.
+     * @param first_move First move of a large board, with the line in the upper 32 bits.
+     * @param bits If the game was saved from a BitCellStore.
+     * @return  If the board could be set.
+     */
+    boolean Restore(int rows, int columns, long quant_mines, int difficulty, long seed,
+                    boolean mines_placed, long first_move, boolean bits) {
+        if (rows < MIN_SIZE || rows > MAX_SIZE || columns < MIN_SIZE || columns > MAX_SIZE) {
+            return false;
+        }
+
+        if (quant_mines < 1 || quant_mines > (long) rows * columns - FIRST_MOVE_SPACES) {
+            return false;
+        }
+
+        this.rows = rows;
+        this.columns = columns;
+        this.quant_mines = quant_mines;
+        this.difficulty = difficulty;
+        this.seed = seed;
+
+        Blank_Boards(bits);
+
+        if (mines_placed && large_board && bit_board == false) {
+            ((TiledCellStore) store).Place_Mines((int) (first_move >>> 32), (int) first_move);
+        }
+
+        this.mines_placed = mines_placed;
+        this.first_move = first_move;
+        if (recorder != null) recorder.Skip();
+        return true;
+    }
+
+    /**
+     * Counts the mines nearby of a restored revealed space, and lists it among the spaces changed,
+     * so a Solver can take in the restored board with Observe.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     */
+    void Restore_Revealed(int x, int y) {
+        store.Set(x, y, (store.Get(x, y) & ~NEARBY) | Count_Nearby(x, y));
+        Record_Change(x, y);
+    }
+
+    /**
+     * Sets the counters used by Victory, and the last move, once a board is restored.
+     * 
+     * @param hidden_safe_spaces Number of spaces without mines that aren't revealed or flagged.
+     * @param flagged_mines Number of flags on mines.
+     * @param last_move Last move, with the line in the upper 32 bits.
+     */
+    void Restore_Counters(long hidden_safe_spaces, long flagged_mines, long last_move) {
+        this.hidden_safe_spaces = hidden_safe_spaces;
+        this.flagged_mines = flagged_mines;
+        this.last_move_x = (int) (last_move >>> 32);
+        this.last_move_y = (int) last_move;
+    }
+
+    /**
+     * Returns the store of the spaces, for Snapshot.
+     */
+    CellStore Display_Store() {
+        return this.store;
+    }
+
+    /**
+     * Returns if the mines were placed, i.e. the first move was made.
+     */
+    boolean Display_Mines_Placed() {
+        return this.mines_placed;
+    }
+
+    /**
+     * Returns if the board is played in the large board mode, with its mines placed tile by tile.
+     */
+    boolean Display_Large_Board() {
+        return this.large_board;
+    }
+
+    /**
+     * Returns the first move, which placed the mines, with the line in the upper 32 bits and the 
+     * column in the lower 32.
+     */
+    long Display_First_Move() {
+        return this.first_move;
+    }
+
+    /**
+     * Returns the last move, with the line in the upper 32 bits and the column in the lower 32.
+     */
+    long Display_Last_Move() {
+        return ((long) last_move_x << 32) | last_move_y;
+    }
+
+    /**
+     * Records every game played on this board into a Replay, from the next board set. Games are
+     * written when they are won or lost.
+     * 
+     * @param recorder The recorder, or null to stop recording.
+     */
+    public void Set_Recorder(Replay.Recorder recorder) {
+        this.recorder = recorder;
+        if (recorder != null) recorder.Begin();
+    }
+
+    /**
+     * Chooses the store of the next boards set: a BitCellStore, for boards of up to 
+     * BIT_BOARD_SPACES spaces, or the usual FlatCellStore and TiledCellStore. The default comes
+     * from -Dminesweeper.store=bits.
+     * 
+     * @param bits If the next boards should use a BitCellStore.
+     */
+    public void Set_Bit_Board(boolean bits) {
+        this.use_bits = bits;
+    }
+
+    /**
+     * Gives the board's storage back to the CellStorePool of the current thread, when the board 
+     * won't be played for a while, e.g. when its player leaves the Server. The board must be set 
+     * again before it's used.
+     */
+    public void Release() {
+        CellStorePool.Give(store);
+        this.store = null;
+    }
+
+    /**
+     * Prints the board somewhere other than System.out, e.g. to a player connected to the Server.
+     * 
+     * @param out Stream where the board is printed from now on.
+     */
+    public void Set_Output(OutputStream out) {
+        this.renderer = New_Renderer(out);
+    }
+
+    /**
+     * Checks if the inputted coordinates are within the board's range (between 0 and the number 
+     * of rows or columns of the board - 1).
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  If both coordinates are within range.
+     */
+    public boolean Valid_Coords(int x, int y) {
+        if (x < 0 || x >= this.rows) return false;
+        if (y < 0 || y >= this.columns) return false;
+
+        return true;
+    }
+
+    /**
+     * Reveals a single space and, if it has no mines nearby, adds it to the reveal queue so its
+     * neighbours are opened as well. Spaces that are already revealed or flagged are skipped.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  If the space was revealed.
+     */
+    private boolean Reveal(int x, int y) {
+        int cell = store.Get(x, y);
+        if ((cell & (REVEALED | FLAG)) != 0) return false;
+
+        cell |= Count_Nearby(x, y);
+        store.Set(x, y, cell | REVEALED);
+        Record_Change(x, y);
+        if ((cell & MINE) == 0) hidden_safe_spaces--;
+        if (cell != 0) return true;
+
+        if (reveal_tail - reveal_head == reveal_queue.length) Grow_Queue();
+        reveal_queue[reveal_tail & (reveal_queue.length - 1)] = ((long) x << 32) | y;
+        reveal_tail++;
+        return true;
+    }
+
+    /**
+     * Doubles the capacity of reveal_queue, keeping the queued spaces in order. The queue is kept
+     * between calls, so this only happens the first few times a large region is opened.
+     */
+    private void Grow_Queue() {
+        long[] grown = new long[reveal_queue.length * 2];
+        int mask = reveal_queue.length - 1;
+
+        for (int i = 0; i < reveal_queue.length; i++) {
+            grown[i] = reveal_queue[(reveal_head + i) & mask];
+        }
+
+        reveal_tail = reveal_tail - reveal_head;
+        reveal_head = 0;
+        reveal_queue = grown;
+    }
+
+    /**
+     * Adds a space to the list of spaces changed by the current move.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     */
+    private void Record_Change(int x, int y) {
+        if (changed_count == changed.length) changed = Arrays.copyOf(changed, changed_count * 2);
+
+        changed[changed_count++] = ((long) x << 32) | y;
+    }
+
+    /**
+     * Applies a player's action to a space. This is the entry point used by the frontends: the 
+     * board itself never prints or reads anything while a game is played. After the call, the 
+     * spaces changed by the move can be read with Changed_Count, Changed_Row and Changed_Column.
+     * 
+     * @param action The action to be applied.
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  The outcome of the move. VICTORY replaces CLEARED, FLAGGED or FLAG_REMOVED when the 
+     * move wins the game.
+     */
+    public MoveResult Apply(Action action, int x, int y) {
+        if (Valid_Coords(x, y) == false) {
+            changed_count = 0;
+            return MoveResult.INVALID_COORDS;
+        }
+
+        if (recorder != null) recorder.Record(this, action, x, y);
+
+        MoveResult result;
+        long start = Metrics.Start();
+
+        switch (action) {
+            case CLEAR:
+                result = Clear_Space(x, y);
+                break;
+            case FLAG:
+                result = Add_Flag(x, y);
+                break;
+            default:
+                result = Remove_Flag(x, y);
+        }
+
+        Metrics.End((action == Action.CLEAR) ? Metrics.Phase.CLEAR : Metrics.Phase.FLAG, start);
+        if (Metrics.ENABLED) Metrics.Move(changed_count, Display_Allocated_Bytes());
+
+        if (changed_count != 0 && result != MoveResult.DEFEAT) {
+            start = Metrics.Start();
+            boolean victory = Victory();
+            Metrics.End(Metrics.Phase.VICTORY, start);
+
+            if (victory) result = MoveResult.VICTORY;
+        }
+
+        if (recorder != null && (result == MoveResult.VICTORY || result == MoveResult.DEFEAT)) {
+            recorder.End(result == MoveResult.VICTORY);
+        }
+
+        return result;
+    }
+
+    /**
+     * Clears a space, revealing it to the player. If it doesn't have a mine and any mines nearby
+     * (indicated by a '*' in the answer board), display a '*' and also reveals the whole connected 
+     * region of '*' spaces, together with the numbered spaces around it. Flagged spaces are never 
+     * revealed by the cascade. Spaces that were already revealed or that have a flag can't be 
+     * cleared.
+     * 
+     * The cascade is iterative: spaces waiting to have their neighbours opened are kept in 
+     * reveal_queue, with the line in the upper 32 bits and the column in the lower 32 bits, so no 
+     * recursion or per-space objects are needed, regardless of the board size. Bit boards open 
+     * the same spaces with BitCellStore.Flood, 64 at a time.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  CLEARED, DEFEAT if the space had a mine, ALREADY_REVEALED or HAS_FLAG. The number 
+     * of spaces revealed is given by Changed_Count.
+     */
+    public MoveResult Clear_Space(int x, int y) {
+        int cell = store.Get(x, y);
+        changed_count = 0;
+        last_move_x = x;
+        last_move_y = y;
+
+        if ((cell & REVEALED) != 0) return MoveResult.ALREADY_REVEALED;
+        if ((cell & FLAG) != 0) return MoveResult.HAS_FLAG;
+
+        if (mines_placed == false) {
+            Set_Mines(x, y);
+            cell = store.Get(x, y);
+        }
+
+        if (bit_board) {
+            changed = ((BitCellStore) store).Flood(x, y, changed);
+            changed_count = ((BitCellStore) store).Opened_Count();
+            if ((cell & MINE) == 0) hidden_safe_spaces -= changed_count;
+
+            return ((cell & MINE) != 0) ? MoveResult.DEFEAT : MoveResult.CLEARED;
+        }
+
+        reveal_head = 0;
+        reveal_tail = 0;
+        Reveal(x, y);
+
+        while (reveal_head != reveal_tail) {
+            long space = reveal_queue[reveal_head & (reveal_queue.length - 1)];
+            reveal_head++;
+            int space_x = (int) (space >>> 32);
+            int space_y = (int) space;
+            int last_x = Math.min(space_x + 1, this.rows - 1);
+            int last_y = Math.min(space_y + 1, this.columns - 1);
+
+            for (int i = Math.max(space_x - 1, 0); i <= last_x; i++) {
+                for (int j = Math.max(space_y - 1, 0); j <= last_y; j++) {
+                    Reveal(i, j);
+                }
+            }
+        }
+
+        return ((cell & MINE) != 0) ? MoveResult.DEFEAT : MoveResult.CLEARED;
+    }
+
+    /**
+     * Adds a flag to a space. A flag cannot be placed on a cleared space, or on a space that 
+     * already has one.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  FLAGGED, ALREADY_REVEALED or ALREADY_FLAGGED.
+     */
+    public MoveResult Add_Flag(int x, int y) {
+        int cell = store.Get(x, y);
+        changed_count = 0;
+        last_move_x = x;
+        last_move_y = y;
+
+        if ((cell & REVEALED) != 0) return MoveResult.ALREADY_REVEALED;
+        if ((cell & FLAG) != 0) return MoveResult.ALREADY_FLAGGED;
+        
+        if ((cell & MINE) != 0) {
+            flagged_mines++;
+        } else {
+            hidden_safe_spaces--;
+        }
+
+        store.Set(x, y, cell | FLAG);
+        Record_Change(x, y);
+        return MoveResult.FLAGGED;
+    }
+
+    /**
+     * Removes a flag from a space.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  FLAG_REMOVED, or NO_FLAG if the space doesn't have a flag.
+     */
+    public MoveResult Remove_Flag(int x, int y) {
+        int cell = store.Get(x, y);
+        changed_count = 0;
+        last_move_x = x;
+        last_move_y = y;
+
+        if ((cell & FLAG) == 0) return MoveResult.NO_FLAG;
+
+        if ((cell & MINE) != 0) {
+            flagged_mines--;
+        } else {
+            hidden_safe_spaces++;
+        }
+
+        store.Set(x, y, cell & ~FLAG);
+        Record_Change(x, y);
+        return MoveResult.FLAG_REMOVED;
+    }
+
+    /**
+     * Returns the number of spaces changed by the last move.
+     */
+    public int Changed_Count() {
+        return changed_count;
+    }
+
+    /**
+     * Returns the line of one of the spaces changed by the last move.
+     * 
+     * @param i Position in the list, from 0 to Changed_Count() - 1.
+     */
+    public int Changed_Row(int i) {
+        return (int) (changed[i] >>> 32);
+    }
+
+    /**
+     * Returns the column of one of the spaces changed by the last move.
+     * 
+     * @param i Position in the list, from 0 to Changed_Count() - 1.
+     */
+    public int Changed_Column(int i) {
+        return (int) changed[i];
+    }
+
+    /**
+     * Checks if the player has inputted coordinates which contained a mine. If so, he/she loses
+     * the game.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  If the square contained a mine.
+     */
+    public boolean Defeat(int x, int y) {
+        return (store.Get(x, y) & (MINE | REVEALED)) == (MINE | REVEALED);
+    }
+
+    /**
+     * Checks if the player has cleared all spaces without a mine and added a flag to all spaces
+     * with a mine. If so, he/she wins the game.
+     * 
+     * The check uses the hidden_safe_spaces and flagged_mines counters, which are kept up to date
+     * by Clear_Space, Add_Flag and Remove_Flag, so it takes constant time. When the program is 
+     * run with -Dminesweeper.debug=true, the counters are also checked against a full scan of the
+     * board.
+     * 
+     * @return If all spaces without a mine have been cleared.
+     */
+    public boolean Victory() {
+        boolean victory = (hidden_safe_spaces == 0 && flagged_mines == this.quant_mines);
+
+        if (DEBUG && victory != Scan_Victory()) {
+            System.err.println("ERROR CODE 6: Victory counters don't match the board!");
+            System.err.println("Hidden safe spaces: " + hidden_safe_spaces + 
+                               "; Flagged mines: " + flagged_mines);
+            return Scan_Victory();
+        }
+
+        return victory;
+    }
+
+    /**
+     * Checks for victory by scanning every space of the board. Only used to verify the counters 
+     * in debug mode.
+     * 
+     * @return If all spaces without a mine have been cleared.
+     */
+    private boolean Scan_Victory() {
+        for (int x = 0; x < this.rows; x++) {
+            for (int y = 0; y < this.columns; y++) {
+                int cell = store.Get(x, y);
+                if ((cell & (REVEALED | FLAG | MINE)) == 0) return false;
+                if ((cell & (FLAG | MINE)) == MINE) return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the character shown to the player for a space: '?' if it's hidden, 'F' if it has a
+     * flag, 'X' if it's a revealed mine, '*' if it has no mines nearby or the number of mines 
+     * nearby.
+     * 
+     * @param cell The space, as stored in the CellStore.
+     * @return  The character of the space in the gameboard.
+     */
+    private static char Board_Char(int cell) {
+        if ((cell & FLAG) != 0) return 'F';
+        if ((cell & REVEALED) == 0) return '?';
+
+        return Answer_Char(cell);
+    }
+
+    /**
+     * Returns the character of a space in the answer board: 'X' if it has a mine, '*' if it has 
+     * no mines nearby or the number of mines nearby.
+     * 
+     * @param cell The space, as stored in the CellStore.
+     * @return  The character of the space in the answer board.
+     */
+    private static char Answer_Char(int cell) {
+        if ((cell & MINE) != 0) return 'X';
+        if ((cell & NEARBY) == 0) return '*';
+
+        return (char) ('0' + (cell & NEARBY));
+    }
+
+    /**
+     * Returns the character shown to the player for a space.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  The character of the space in the gameboard.
+     */
+    public char Display_Space(int x, int y) {
+        return Board_Char(store.Get(x, y));
+    }
+
+    /**
+     * Returns the character of a space in the answer board.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  The character of the space in the answer board.
+     */
+    public char Display_Answer(int x, int y) {
+        int cell = store.Get(x, y);
+        if ((cell & REVEALED) == 0) cell |= Count_Nearby(x, y);
+
+        return Answer_Char(cell);
+    }
+
+    /**
+     * Prints the gameboard with line (x) and column (y) indexes. On boards larger than the 
+     * viewport, only the part around the last move is printed.
+     */
+    public void Print_Board() {
+        renderer.Render(this, false, last_move_x, last_move_y);
+    }
+
+    /**
+     * Prints the answer board with line (x) and column (y) indexes. On boards larger than the 
+     * viewport, only the part around the last move is printed.
+     */
+    public void Print_AnswerBoard() {
+        renderer.Reset();
+        renderer.Render(this, true, last_move_x, last_move_y);
+    }
+
+    /**
+     * Returns the terminal to normal scrolling after a game printed in diff mode.
+     */
+    public void Reset_Display() {
+        renderer.Reset();
+    }
+
+    /**
+     * Returns the board's number of rows.
+     */
+    public int Display_Rows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the board's number of columns.
+     */
+    public int Display_Columns() {
+        return this.columns;
+    }
+
+    /**
+     * Returns the game's difficulty.
+     */
+    public int Display_Difficulty() {
+        return this.difficulty;
+    }
+
+    /**
+     * Returns the number of bytes allocated for the board: its spaces and the lists used by the
+     * moves.
+     */
+    public long Display_Allocated_Bytes() {
+        return store.Allocated_Bytes() + 8L * reveal_queue.length + 8L * changed.length;
+    }
+
+    /**
+     * Returns the seed used to generate the board.
+     */
+    public long Display_Seed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the number of mines.
+     */
+    public long Display_Quant_Mines() {
+        return this.quant_mines;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,331 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * BoardRenderer class.
+ * Draws the board into a reusable byte buffer, which is then written with a single call.
+ * 
+ * Only a window (viewport) of up to viewport x viewport spaces is drawn, centered on the given
+ * focus space, usually the last move. In diff mode, the board is kept at the top of the terminal
+ * and the lines below it scroll as usual; after the first frame, only the spaces that changed are
+ * redrawn, using ANSI cursor positioning.
+ */
+public class BoardRenderer {
+    private static final byte[] CLEAR_SCREEN = {27, '[', 'H', 27, '[', '2', 'J'};
+    private static final byte[] SAVE_CURSOR = {27, '7'};
+    private static final byte[] RESTORE_CURSOR = {27, '8'};
+    private static final byte[] RESET_SCROLL = {27, '[', 'r'};
+
+    private final OutputStream out;
+    private final int viewport;
+    private final boolean diff;
+
+    private byte frame[] = new byte[4096];
+    private byte previous[] = new byte[4096];
+    private byte output[] = new byte[4096];
+    private int frame_length, previous_length, output_length;
+    private int line_length, lines;
+    private boolean drawn = false;
+    private int drawn_x, drawn_y;
+    private boolean drawn_answer;
+
+    /**
+     * Creates a renderer.
+     * 
+     * @param out Stream where the frames are written.
+     * @param viewport Maximum number of rows and columns drawn.
+     * @param diff If only the changed spaces should be redrawn, with ANSI cursor positioning.
+     */
+    public BoardRenderer(OutputStream out, int viewport, boolean diff) {
+        this.out = out;
+        this.viewport = viewport;
+        this.diff = diff;
+    }
+
+    /**
+     * Draws the board, or the part of it inside the viewport.
+     * 
+     * @param minefield The board to be drawn.
+     * @param answer If the answer board should be drawn instead of the gameboard.
+     * @param focus_x Line the viewport is centered on.
+     * @param focus_y Column the viewport is centered on.
+     */
+    public void Render(Board minefield, boolean answer, int focus_x, int focus_y) {
+        int rows = minefield.Display_Rows();
+        int columns = minefield.Display_Columns();
+        int shown_x = Math.min(rows, viewport);
+        int shown_y = Math.min(columns, viewport);
+        int first_x = Math.max(0, Math.min(focus_x - shown_x / 2, rows - shown_x));
+        int first_y = Math.max(0, Math.min(focus_y - shown_y / 2, columns - shown_y));
+        int width = Math.max(2, Digits(Math.max(first_x + shown_x, first_y + shown_y) - 1));
+
+        line_length = (width + 1) * (shown_y + 1) + 1;
+        lines = shown_x + 1;
+        frame_length = 0;
+        Reserve_Frame(line_length * lines + 128);
+
+        Put_Frame('/');
+        Put_Frame('/');
+        Put_Spaces(width - 2);
+
+        for (int y = first_y; y < first_y + shown_y; y++) {
+            Put_Frame(' ');
+            Put_Index(y, width);
+        }
+
+        Put_Frame(' ');
+        Put_Frame('\n');
+
+        for (int x = first_x; x < first_x + shown_x; x++) {
+            Put_Index(x, width);
+            Put_Frame(' ');
+
+            for (int y = first_y; y < first_y + shown_y; y++) {
+                Put_Spaces(width - 1);
+                Put_Frame(answer ? minefield.Display_Answer(x, y) : minefield.Display_Space(x, y));
+                Put_Frame(' ');
+            }
+
+            Put_Frame('\n');
+        }
+
+        if (shown_x < rows || shown_y < columns) {
+            Put_Text("(Showing rows ");
+            Put_Number(first_x);
+            Put_Text(" to ");
+            Put_Number(first_x + shown_x - 1);
+            Put_Text(" and columns ");
+            Put_Number(first_y);
+            Put_Text(" to ");
+            Put_Number(first_y + shown_y - 1);
+            Put_Text(" of a ");
+            Put_Number(rows);
+            Put_Frame('x');
+            Put_Number(columns);
+            Put_Text(" board.)\n");
+            lines++;
+        }
+
+        if (diff) {
+            boolean same_layout = drawn && frame_length == previous_length && 
+                                  first_x == drawn_x && first_y == drawn_y && 
+                                  answer == drawn_answer;
+            Write_Diff(same_layout);
+            drawn_x = first_x;
+            drawn_y = first_y;
+            drawn_answer = answer;
+        } else {
+            Write(frame, frame_length);
+        }
+    }
+
+    /**
+     * Writes the frame in diff mode. If the layout of the frame changed, the screen is cleared and
+     * the whole frame is drawn, with the scroll region set to the lines below it. Otherwise, only
+     * the runs of characters that differ from the previous frame are drawn.
+     * 
+     * @param same_layout If the previous frame shows the same part of the board, with the same 
+     * size.
+     */
+    private void Write_Diff(boolean same_layout) {
+        output_length = 0;
+
+        if (same_layout == false) {
+            Put_Output(CLEAR_SCREEN, CLEAR_SCREEN.length);
+            Put_Output(frame, frame_length);
+            Put_Escape(lines + 1, 'r');
+            Put_Cursor(lines + 1, 1);
+        } else {
+            Put_Output(SAVE_CURSOR, SAVE_CURSOR.length);
+            int i = 0;
+
+            while (i < frame_length) {
+                if (frame[i] == previous[i]) {
+                    i++;
+                    continue;
+                }
+
+                int start = i;
+                while (i < frame_length && frame[i] != previous[i] && frame[i] != '\n') i++;
+
+                Put_Cursor(start / line_length + 1, start % line_length + 1);
+                Reserve_Output(i - start);
+                System.arraycopy(frame, start, output, output_length, i - start);
+                output_length += i - start;
+            }
+
+            Put_Output(RESTORE_CURSOR, RESTORE_CURSOR.length);
+        }
+
+        Write(output, output_length);
+
+        byte swap[] = previous;
+        previous = frame;
+        frame = swap;
+        previous_length = frame_length;
+        drawn = true;
+    }
+
+    /**
+     * Leaves diff mode's scroll region, so the terminal scrolls normally again. The next frame is
+     * drawn in full.
+     */
+    public void Reset() {
+        if (diff && drawn) Write(RESET_SCROLL, RESET_SCROLL.length);
+
+        drawn = false;
+        previous_length = 0;
+    }
+
+    /**
+     * Writes a buffer to the output stream and flushes it.
+     * 
+     * @param buffer The bytes to be written.
+     * @param length Number of bytes to be written.
+     */
+    private void Write(byte[] buffer, int length) {
+        try {
+            out.write(buffer, 0, length);
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 7: The board couldn't be drawn!");
+        }
+    }
+
+    /**
+     * Returns the number of decimal digits of a non-negative number.
+     */
+    private static int Digits(long value) {
+        int digits = 1;
+
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+
+        return digits;
+    }
+
+    /**
+     * Grows the frame buffer, if needed, so it can hold the given number of bytes in total.
+     */
+    private void Reserve_Frame(int capacity) {
+        if (capacity <= frame.length) return ;
+
+        frame = new byte[Math.max(capacity, frame.length * 2)];
+        previous_length = 0;
+    }
+
+    /**
+     * Grows the output buffer, if needed, so it can hold the given number of extra bytes.
+     */
+    private void Reserve_Output(int extra) {
+        if (output_length + extra <= output.length) return ;
+
+        byte grown[] = new byte[Math.max(output_length + extra, output.length * 2)];
+        System.arraycopy(output, 0, grown, 0, output_length);
+        output = grown;
+    }
+
+    /**
+     * Appends a character to the frame.
+     */
+    private void Put_Frame(char c) {
+        frame[frame_length++] = (byte) c;
+    }
+
+    /**
+     * Appends the given number of spaces to the frame.
+     */
+    private void Put_Spaces(int count) {
+        for (int i = 0; i < count; i++) {
+            frame[frame_length++] = ' ';
+        }
+    }
+
+    /**
+     * Appends an ASCII text to the frame.
+     */
+    private void Put_Text(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            frame[frame_length++] = (byte) text.charAt(i);
+        }
+    }
+
+    /**
+     * Writes an index into the frame, padded with zeros to the given width.
+     */
+    private void Put_Index(long value, int width) {
+        for (int i = frame_length + width - 1; i >= frame_length; i--) {
+            frame[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        frame_length += width;
+    }
+
+    /**
+     * Appends a number to the frame, without padding.
+     */
+    private void Put_Number(long value) {
+        Put_Index(value, Digits(value));
+    }
+
+    /**
+     * Appends bytes to the output buffer.
+     */
+    private void Put_Output(byte[] bytes, int length) {
+        Reserve_Output(length);
+        System.arraycopy(bytes, 0, output, output_length, length);
+        output_length += length;
+    }
+
+    /**
+     * Writes an ANSI escape sequence with one numeric parameter, e.g. ESC [ 12 r.
+     */
+    private void Put_Escape(int value, char command) {
+        Reserve_Output(16);
+        output[output_length++] = 27;
+        output[output_length++] = '[';
+        output_length = Put_Decimal(output, output_length, value);
+        output[output_length++] = (byte) command;
+    }
+
+    /**
+     * Writes the ANSI escape sequence which moves the cursor to a line and column, counted from 1.
+     */
+    private void Put_Cursor(int line, int column) {
+        Reserve_Output(24);
+        output[output_length++] = 27;
+        output[output_length++] = '[';
+        output_length = Put_Decimal(output, output_length, line);
+        output[output_length++] = ';';
+        output_length = Put_Decimal(output, output_length, column);
+        output[output_length++] = 'H';
+    }
+
+    /**
+     * Writes a positive number into a buffer.
+     * 
+     * @return  The position after the last digit.
+     */
+    private static int Put_Decimal(byte[] buffer, int position, int value) {
+        int digits = Digits(value);
+
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        return position + digits;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.util.SplittableRandom;
+
+/**
+ * Bot class.
+ * Plays a whole game through Board.Apply, looking only at the spaces shown to the player. It 
+ * clears every space the Solver proves safe and flags every space it proves to be a mine. When 
+ * nothing can be deduced, it clears the space Probability finds least likely to have a mine.
+ */
+public class Bot {
+    private final Solver solver = new Solver();
+    private final Probability probability = new Probability();
+    private long moves;
+
+    /**
+     * Plays a game until it's won or lost. The board must have been set already, and must not be
+     * larger than Board.LARGE_BOARD_SPACES.
+     * 
+     * @param minefield The board to be played.
+     * @param rng Random generator used to pick guesses.
+     * @return  VICTORY or DEFEAT.
+     */
+    public MoveResult Play(Board minefield, SplittableRandom rng) {
+        solver.Reset(minefield);
+
+        moves = 1;
+        MoveResult result = minefield.Apply(Action.CLEAR, minefield.Display_Rows() / 2,
+                                            minefield.Display_Columns() / 2);
+        solver.Observe();
+
+        while (result != MoveResult.VICTORY && result != MoveResult.DEFEAT) {
+            long space = solver.Next_Safe();
+            Action action = Action.CLEAR;
+
+            if (space == -1) {
+                space = solver.Next_Mine();
+                action = Action.FLAG;
+            }
+
+            if (space == -1) {
+                if (solver.Count_Rule() == false) result = Guess(minefield, rng);
+                continue;
+            }
+
+            result = minefield.Apply(action, (int) (space >>> 32), (int) space);
+            moves++;
+            solver.Observe();
+        }
+
+        return result;
+    }
+
+    /**
+     * Clears the unknown hidden space least likely to have a mine. When none is left, every space
+     * was cleared or flagged and the board should report the victory: if it doesn't, its counters
+     * are wrong, and the game is counted as lost rather than won.
+     * 
+     * @param minefield The board being played.
+     * @param rng Random generator used to break ties and sample large components.
+     * @return  The result of the move, or VICTORY or DEFEAT as the board tells if there is no
+     * space left to guess.
+     */
+    private MoveResult Guess(Board minefield, SplittableRandom rng) {
+        if (probability.Compute(minefield, solver, rng) == false) {
+            if (minefield.Victory()) return MoveResult.VICTORY;
+
+            System.err.println("ERROR CODE 6: Every space was played but the game wasn't won!");
+            return MoveResult.DEFEAT;
+        }
+
+        long space = probability.Safest(rng);
+        MoveResult result = minefield.Apply(Action.CLEAR, (int) (space >>> 32), (int) space);
+
+        moves++;
+        solver.Observe();
+        return result;
+    }
+
+    /**
+     * Returns the number of moves made in the last game, counting clears and flags.
+     */
+    public long Display_Moves() {
+        return this.moves;
+    }
+}
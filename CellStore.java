@@ -0,0 +1,84 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+/**
+ * CellStore interface.
+ * Stores the spaces of a board. Each space is read and written as one byte, in the format 
+ * described in the Board class.
+ */
+public interface CellStore {
+    /**
+     * Returns a space.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  The space, with the NEARBY bits in the lower 4 bits and the MINE, REVEALED and
+     * FLAG bits above them.
+     */
+    int Get(int x, int y);
+
+    /**
+     * Overwrites a space.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @param cell The new value of the space.
+     */
+    void Set(int x, int y, int cell);
+
+    /**
+     * Resets every space to 0, meaning no mine, not revealed and no flag.
+     */
+    void Clear();
+
+    /**
+     * Returns the number of bytes the store has allocated for the spaces.
+     */
+    long Allocated_Bytes();
+
+    /**
+     * Returns the number of blocks the spaces are kept in. Blocks let a Snapshot read and write
+     * the spaces without a call per space.
+     */
+    int Blocks();
+
+    /**
+     * Returns the spaces of a block.
+     * 
+     * @param index Index of the block, from 0 to Blocks() - 1.
+     * @return  The block's spaces, or null if the block isn't allocated.
+     */
+    byte[] Block(int index);
+
+    /**
+     * Returns the spaces of a block, allocating it if needed with no mines placed, so they can be
+     * overwritten with a saved game.
+     * 
+     * @param index Index of the block, from 0 to Blocks() - 1.
+     * @return  The block's spaces.
+     */
+    byte[] Restore_Block(int index);
+
+    /**
+     * Stores the spaces written into the array returned by Restore_Block, for stores that don't
+     * keep their spaces as bytes.
+     * 
+     * @param index Index of the block.
+     */
+    void Commit_Block(int index);
+
+    /**
+     * Returns the space stored at an offset of a block.
+     * 
+     * @param index Index of the block.
+     * @param offset Offset of the space in the block.
+     * @return  The space, with the line in the upper 32 bits and the column in the lower 32 bits.
+     */
+    long Space_Of(int index, int offset);
+}
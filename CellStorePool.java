@@ -0,0 +1,86 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+/**
+ * CellStorePool class.
+ * Keeps the FlatCellStores of boards that changed size or were released, so the next board of
+ * that size on the same thread reuses one, cleared with a single bulk fill, instead of allocating
+ * a new one. A Simulator worker switching difficulties, or a Server session whose player picks
+ * another difficulty, then plays millions of games without allocating any board storage.
+ * 
+ * Each thread has its own pool, so taking and giving back stores needs no locking. Stores are
+ * matched by size, since the number of mines doesn't change the storage, with at most 
+ * MAX_PER_SIZE per size, MAX_STORES and MAX_BYTES in all per thread, so a thread that played a 
+ * huge custom board doesn't keep it forever. Large boards use TiledCellStores, which aren't pooled.
+ * 
+ * A pool lives as long as its thread, and an idle thread of the Server's cached pool keeps its
+ * stores until it's reclaimed, so MAX_BYTES is kept at 1 MB: many times the largest difficulty, a
+ * custom board of up to 1000x1000, and little for an idle thread to hold.
+ */
+public class CellStorePool {
+    private static final int MAX_STORES = 8;
+    private static final int MAX_PER_SIZE = 2;
+    private static final long MAX_BYTES = 1 << 20;
+    private static final ThreadLocal<CellStorePool> POOLS =
+        ThreadLocal.withInitial(CellStorePool::new);
+
+    private final FlatCellStore stores[] = new FlatCellStore[MAX_STORES];
+    private int count;
+    private long bytes;
+
+    /**
+     * Returns a blank store of the given size, from the current thread's pool if it has one.
+     * 
+     * @param rows Number of lines of the board.
+     * @param columns Number of columns of the board.
+     * @return  The store, with every space set to 0.
+     */
+    public static FlatCellStore Take(int rows, int columns) {
+        CellStorePool pool = POOLS.get();
+
+        // A handful of stores at most, so a scan is faster than a map and boxes no keys.
+        for (int i = 0; i < pool.count; i++) {
+            FlatCellStore store = pool.stores[i];
+            if (store.Same_Size(rows, columns) == false) continue;
+
+            pool.stores[i] = pool.stores[--pool.count];
+            pool.stores[pool.count] = null;
+            pool.bytes -= store.Allocated_Bytes();
+            store.Clear();
+            return store;
+        }
+
+        return new FlatCellStore(rows, columns);
+    }
+
+    /**
+     * Gives a store back to the current thread's pool, which keeps it if there is room. The store
+     * must not be used afterwards.
+     * 
+     * @param store The store, which is ignored unless it's a FlatCellStore.
+     */
+    public static void Give(CellStore store) {
+        if (store instanceof FlatCellStore == false) return ;
+
+        FlatCellStore flat = (FlatCellStore) store;
+        CellStorePool pool = POOLS.get();
+        int same_size = 0;
+
+        if (pool.count == MAX_STORES || pool.bytes + flat.Allocated_Bytes() > MAX_BYTES) return ;
+
+        for (int i = 0; i < pool.count; i++) {
+            if (pool.stores[i].Same_Size(flat.Display_Rows(), flat.Display_Columns())) same_size++;
+        }
+
+        if (same_size >= MAX_PER_SIZE) return ;
+
+        pool.stores[pool.count++] = flat;
+        pool.bytes += flat.Allocated_Bytes();
+    }
+}
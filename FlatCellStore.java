@@ -0,0 +1,110 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.util.Arrays;
+
+/**
+ * FlatCellStore class.
+ * Stores every space of the board in a single byte array, line after line, so the space on line
+ * x and column y is cells[x * columns + y].
+ */
+public class FlatCellStore implements CellStore {
+    private final int rows;
+    private final int columns;
+    private final byte cells[];
+
+    /**
+     * Creates a blank store.
+     * 
+     * @param rows Number of lines of the board.
+     * @param columns Number of columns of the board.
+     */
+    public FlatCellStore(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = new byte[rows * columns];
+    }
+
+    @Override
+    public int Get(int x, int y) {
+        return cells[x * columns + y];
+    }
+
+    @Override
+    public void Set(int x, int y, int cell) {
+        cells[x * columns + y] = (byte) cell;
+    }
+
+    @Override
+    public void Clear() {
+        Arrays.fill(cells, (byte) 0);
+    }
+
+    @Override
+    public long Allocated_Bytes() {
+        return cells.length;
+    }
+
+    @Override
+    public int Blocks() {
+        return 1;
+    }
+
+    @Override
+    public byte[] Block(int index) {
+        return this.cells;
+    }
+
+    @Override
+    public byte[] Restore_Block(int index) {
+        return this.cells;
+    }
+
+    @Override
+    public void Commit_Block(int index) {}
+
+    @Override
+    public long Space_Of(int index, int offset) {
+        return ((long) (offset / columns) << 32) | (offset % columns);
+    }
+
+    /**
+     * Copies every space of another store of the same size.
+     * 
+     * @param source The store to be copied.
+     */
+    public void Copy_From(FlatCellStore source) {
+        System.arraycopy(source.cells, 0, this.cells, 0, this.cells.length);
+    }
+
+    /**
+     * Returns the number of lines of the board.
+     */
+    public int Display_Rows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the number of columns of the board.
+     */
+    public int Display_Columns() {
+        return this.columns;
+    }
+
+    /**
+     * Checks if the store can hold a board of the given size without being reallocated.
+     * 
+     * @param rows Number of lines of the board.
+     * @param columns Number of columns of the board.
+     * @return  If the store has exactly that size.
+     */
+    public boolean Same_Size(int rows, int columns) {
+        return this.rows == rows && this.columns == columns;
+    }
+}
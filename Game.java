@@ -1,302 +1,660 @@
-/**
- * MINESWEEPER GAME
- * 
- * Author: Andre Kenji Sato
- * Version: Beta 1.0
- * 
- * (N) No rights reserved. 2022.
- */
-
-import java.util.Scanner;
-
-/**
- * Game class.
- * Manages the main game.
- */
-public class Game {
-    static Scanner scan = new Scanner(System.in);
-
-    /**
-     * Gets the player name. It cannot contain the character ',', sicnce its used as a separator
-     * in the "scoreboard.csv".
-     * 
-     * @return The player's name.
-     */
-    public static String Player_Name() {
-        String player;
-        
-        System.out.print("Welcome to Mineswepper!" + '\n' + 
-                         "Please insert your name: ");
-        player = scan.nextLine();
-
-        while (player.contains(",") == true) {
-            System.out.println();
-            System.out.println("Sorry! But your name cannot contain the character ','");
-            System.out.print("Please insert a new name: ");
-            player = scan.nextLine();
-        }
-
-        return player;
-    }
-
-    /**
-     * Lets the player select between 5 levels of difficulty and a custom one. 
-     * 
-     * @param minefield The board used in the game.
-     */
-    public static void Difficulty_Selection(Board minefield) {
-        boolean valid_difficulty = false;
-        int difficulty;
-
-        while (valid_difficulty == false) {
-            System.out.print("Select your difficulty..." + '\n' +
-                             "0: Custom." + '\n' +                   
-                             "1: Very Easy." + '\n' +
-                             "2: Easy." + '\n' +
-                             "3: Normal." + '\n' +
-                             "4: Hard." + '\n' +
-                             "5: Very Hard." + '\n');
-            String difficulty_input = scan.next();
-            
-            if (difficulty_input.matches("\\d")) {
-                difficulty = Integer.parseInt(difficulty_input);
-
-                if (difficulty == 0) {
-                    minefield.Set_Custom_Difficulty(scan);
-                    valid_difficulty = true;
-                } else {
-                    valid_difficulty = minefield.Set_Difficulty(difficulty);
-                }
-            }
-
-            if (valid_difficulty == false) {
-                System.out.println('\n' + "Invalid difficulty! Please insert a new value." + '\n');
-            }
-        }
-
-        System.out.println();
-    }
-
-    /**
-     * Option for the player to choose his/her next action. Option 0 clears a space, option 1
-     * places a flag and option 2 removes a flag.
-     * 
-     * @return The option chosen by the player.
-     */
-    public static int Option_Selection() {
-        boolean valid_option = false;
-        int option = -1;
-
-        while (valid_option == false) {
-            System.out.println();
-            System.out.print("List of actions: " + '\n' +
-                             "0: Clear a space." + '\n' +                   
-                             "1: Insert flag." + '\n' +
-                             "2: Remove flag." + '\n');
-            String option_input = scan.next();
-
-            if (option_input.matches("\\d")) {
-                option = Integer.parseInt(option_input);
-                if (option >= 0 && option <= 2) valid_option = true;
-            }
-
-            if (valid_option == false) {
-                System.out.println('\n' + "Invalid option! Please select a new option." + '\n');
-            }
-        }
-
-        return option;
-    }
-
-    /**
-     * Lets the user choose the desired space coordinates for his/her next action. Then, the 
-     * function validates the coordinates.
-     * 
-     * @param minefield The board used in the game.
-     * @return Integer array with the selected coordinates.
-     */
-    public static int[] Space_Selection(Board minefield) {
-        boolean valid_coord = false;
-        String x_input, y_input;
-        int[] coord = new int[2];
-        
-        while (valid_coord == false) {
-            System.out.print("Insert a Row. Row must be between 0 and " + 
-                             (minefield.Display_Size() - 1) + ": ");
-            x_input = scan.next();
-
-            System.out.print("Insert a Column. Column must be between 0 and " + 
-                             (minefield.Display_Size() - 1) + ": ");
-            y_input = scan.next();
-
-            if (x_input.matches("\\d+") && y_input.matches("\\d+")) {
-                coord[0] = Integer.parseInt(x_input);
-                coord[1] = Integer.parseInt(y_input);
-                valid_coord = minefield.Valid_Coords(coord[0], coord[1]);
-            }
-
-            if (valid_coord == false) {
-                System.out.println("Invalid value(s). Please insert new coordinates.");
-            }
-        }
-
-        return coord;
-    }
-
-    /**
-     * The player sweeps the board, until he/she steps on a mine (defeat == true), or he/she clears
-     * all spaces without mines and flags all spaces with mines(victory == true). 
-     * 
-     * @param minefield The board used in the game.
-     * @return If the player won the game.
-     */
-    public static boolean MineSweep(Board minefield) {
-        boolean victory = false;
-        boolean defeat = false;
-
-        minefield.Print_Board();
-
-        while (victory == false && defeat == false) {   
-            //OBS: coord[0] stores the line (x) and coord[1] stores the column (y).
-            int coord[] = new int[2];
-            int option;
-
-            option = Option_Selection();
-            coord = Space_Selection(minefield);
-
-            switch (option) {
-                case 0:
-                    minefield.Clear_Space(coord[0], coord[1]);
-                    break;
-                case 1:
-                    minefield.Add_Flag(coord[0], coord[1]);
-                    break;
-                case 2:
-                    minefield.Remove_Flag(coord[0], coord[1]);
-                    break;
-                default:
-                    System.err.println("ERROR CODE 5: Option " + option + " is invalid!");
-            }
-
-            System.out.println();
-            minefield.Print_Board();
-            System.out.println();
-            defeat = minefield.Defeat(coord[0], coord[1]);
-
-            if (defeat == false) victory = minefield.Victory();
-        }
-
-        return victory;
-    }
-
-    /**
-     * Allows the player to include his/her score into a scoreboard, and displays the top 10 
-     * scores with the players that achieved them.
-     * 
-     * @param score The current scoreboard.
-     * @param name The player's name.
-     */
-    public static void New_Score(Scoreboard score, String name) {
-        boolean valid_input = false;
-
-        while (valid_input == false) {
-            System.out.print("Do you wish to add your name and score on the Scoreboard?" + '\n' +
-                             "Yes: 1" + '\n' +
-                             "No: 2" + '\n');
-            String input = scan.next();
-
-            if (input.matches("\\d")) {
-                if (Integer.parseInt(input) == 1) {
-                    valid_input = true;
-                    score.Write_Score(name);
-                    score.Display_Top10();
-                }
-
-                if (Integer.parseInt(input) == 2) {
-                    valid_input = true;
-                    score.Display_Top10();
-                }
-            }
-
-            if (valid_input == false) {
-                System.out.println("Invalid option! Please select a new option.");
-            }
-
-            System.out.println("");
-        }
-    }
-
-    /**
-     * Allows the player to play another round of Minesweeper or end the program. 
-     * 
-     * @param name The player's name.
-     * @return If the player wishes to play another round.
-     */
-    public static boolean Another_Game(String name) {
-        boolean valid_input = false;
-        String input;
-
-        while (valid_input == false) {
-            System.out.print(name + ", do you wish to play another round?" + '\n' + 
-                             "Yes: 1" + '\n' +
-                             "No: 2" + '\n');
-            input = scan.next();
-
-            if (input.matches("\\d")) {
-                if (Integer.parseInt(input) == 1) return true;
-                if (Integer.parseInt(input) == 2) return false;
-            }
-
-            if (valid_input == false) {
-                System.out.println("Invalid option! Please select a new option.");
-            }
-
-            System.out.println("");
-        }
-
-        return false;
-    }
-
-    /**
-     * MAIN FUNCTION!
-     */
-    public static void main(String[] args) {
-        Board minefield = new Board();
-        Scoreboard score = new Scoreboard();
-        TimeKeeping time = new TimeKeeping();
-        
-        boolean victory = false;
-        boolean play = true;
-        String name;
-
-        while (play == true) {
-            name = Player_Name();
-            System.out.println('\n' + "Starting the game, " + name + "..." + '\n');
-            System.out.println("Good luck!");
-
-            time.Update_Time("start");
-            Difficulty_Selection(minefield);
-            victory = MineSweep(minefield);     
-            time.Update_Time("finish");
-
-            if (victory == true) {
-                System.out.println("Congratulations! You cleared the whole field!");
-            } else {
-                System.out.println("BOOM!! Er... You lost.");
-                System.out.println("Revealing the whole minefield: ");
-                System.out.println("");
-                minefield.Print_AnswerBoard();
-            }
-
-            System.out.println();
-            time.Time_Taken();
-            score.Calculate_Score(minefield, time, victory);
-            if (victory == true) New_Score(score, name);
-            play = Another_Game(name);
-        }
-
-        System.out.println("Closing software... Thank you for playing!");
-        System.out.println("Check my github for other games/programs!");
-        scan.close();
-    }
-}
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Game class.
+ * Manages the main game.
+ * 
+ * Each Game is one player's session, with its own input, output, Board, TimeKeeping and
+ * Scoreboard, so the console runs one and the Server runs one per connection. Only the
+ * NoGuessGenerator, the score store and the Replay log are shared between sessions. The Board,
+ * Solver and Probability of a session are reset in place from round to round, so rounds don't
+ * allocate new ones.
+ */
+public class Game {
+    static NoGuessGenerator generator = 
+        new NoGuessGenerator(Runtime.getRuntime().availableProcessors());
+    static final long AUTOSAVE_SECONDS = Long.getLong("minesweeper.autosave", 30);
+    private static final Pattern DENSITY = Pattern.compile("\\d{1,3}(\\.\\d{1,9})?%");
+
+    private final Scanner scan;
+    private final PrintStream out;
+    private final Snapshot snapshot;
+    private final Solver solver = new Solver();
+    private final Probability probability = new Probability();
+
+    /**
+     * Creates a session.
+     * 
+     * @param in Where the player's input is read from.
+     * @param out Where the prompts and the board are printed.
+     * @param snapshot Where the game is saved, or null if it can't be saved.
+     */
+    public Game(InputStream in, PrintStream out, Snapshot snapshot) {
+        this.scan = new Scanner(in);
+        this.out = out;
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Reads a number typed by the player, checking its digits one by one instead of with a regex,
+     * which would compile a Pattern on every call.
+     * 
+     * @param input The player's input.
+     * @param max_digits Maximum number of digits, at most 18.
+     * @return  The number, or -1 if the input isn't made of 1 to max_digits digits.
+     */
+    static long Parse_Number(String input, int max_digits) {
+        if (input.isEmpty() || input.length() > max_digits) return -1;
+
+        long value = 0;
+
+        for (int i = 0; i < input.length(); i++) {
+            char digit = input.charAt(i);
+            if (digit < '0' || digit > '9') return -1;
+
+            value = value * 10 + (digit - '0');
+        }
+
+        return value;
+    }
+
+    /**
+     * Gets the player name. It cannot contain the character ',', since it was the separator of
+     * the old "scoreboard.csv", which is still imported.
+     * 
+     * @return The player's name.
+     */
+    public String Player_Name() {
+        String player;
+        
+        out.print("Welcome to Mineswepper!" + '\n' + 
+                  "Please insert your name: ");
+        player = scan.nextLine();
+
+        while (player.contains(",") == true) {
+            out.println();
+            out.println("Sorry! But your name cannot contain the character ','");
+            out.print("Please insert a new name: ");
+            player = scan.nextLine();
+        }
+
+        return player;
+    }
+
+    /**
+     * Lets the player select between 5 levels of difficulty and a custom one. 
+     * 
+     * @param minefield The board used in the game.
+     */
+    public void Difficulty_Selection(Board minefield) {
+        boolean valid_difficulty = false;
+        int difficulty;
+
+        while (valid_difficulty == false) {
+            out.print("Select your difficulty..." + '\n' +
+                      "0: Custom." + '\n' +                   
+                      "1: Very Easy." + '\n' +
+                      "2: Easy." + '\n' +
+                      "3: Normal." + '\n' +
+                      "4: Hard." + '\n' +
+                      "5: Very Hard." + '\n');
+            String difficulty_input = scan.next();
+            
+            difficulty = (int) Parse_Number(difficulty_input, 1);
+
+            if (difficulty >= 0) {
+                if (difficulty == 0) {
+                    Custom_Selection(minefield);
+                    valid_difficulty = true;
+                } else {
+                    valid_difficulty = minefield.Set_Difficulty(difficulty);
+                    if (valid_difficulty) No_Guess_Selection(minefield, difficulty);
+                }
+            }
+
+            if (valid_difficulty == false) {
+                out.println('\n' + "Invalid difficulty! Please insert a new value." + '\n');
+            }
+        }
+
+        out.println();
+    }
+
+    /**
+     * Lets the player choose a board that can be solved without guessing. Such boards are opened 
+     * on the space in the middle before the first move.
+     * 
+     * @param minefield The board used in the game, already set to the chosen difficulty.
+     * @param difficulty The chosen difficulty, from 1 to 5.
+     */
+    public void No_Guess_Selection(Board minefield, int difficulty) {
+        while (true) {
+            out.print('\n' + "Do you want a board that can be solved without guessing?" + 
+                      '\n' + "Yes: 1" + '\n' + "No: 2" + '\n');
+            String input = scan.next();
+
+            if (input.equals("2")) return ;
+
+            if (input.equals("1")) {
+                Board layout = generator.Take(difficulty);
+
+                if (layout == null || minefield.Copy_Layout(layout) == false) {
+                    out.println("Sorry, no such board could be made. Playing a normal one.");
+                    return ;
+                }
+
+                long start = NoGuessGenerator.Start(minefield);
+                int x = (int) (start >>> 32);
+                int y = (int) start;
+
+                minefield.Apply(Action.CLEAR, x, y);
+                out.println("The board was opened at Row [" + x + "], Column [" + y + "].");
+                return ;
+            }
+
+            out.println("Invalid option! Please select a new option.");
+        }
+    }
+
+    /**
+     * Reads one of the board's dimensions for the custom difficulty, asking again until the value 
+     * is between Board.MIN_SIZE and Board.MAX_SIZE.
+     * 
+     * @param dimension Name of the dimension shown to the player ("rows" or "columns").
+     * @return  The inputted dimension.
+     */
+    public int Dimension_Selection(String dimension) {
+        while (true) {
+            out.println("How many " + dimension + " should the board have?" + '\n' +
+                        "The number of " + dimension + " must be between " + 
+                        Board.MIN_SIZE + " and " + Board.MAX_SIZE + ".");
+            String input = scan.next();
+
+            int value = (int) Parse_Number(input, 9);
+
+            if (value < 0) {
+                out.println("Invalid value. Please insert a new value.");
+            } else {
+                if (value >= Board.MIN_SIZE && value <= Board.MAX_SIZE) return value;
+
+                out.println('\n' + "The board can't have " + value + " " + dimension + 
+                            ". Please insert a new value." + '\n');
+            }
+        }
+    }
+
+    /**
+     * Reads the number of mines for the custom difficulty, either as a number of mines (e.g. 
+     * "500") or as a mine density in percent (e.g. "20%" or "12.5%"). Asks again until there is 
+     * at least 1 mine and room for the first move, whose space and neighbours never have mines.
+     * 
+     * @param spaces The number of spaces of the board.
+     * @return  The number of mines.
+     */
+    public long Mines_Selection(long spaces) {
+        while (true) {
+            out.println("How many mines should the board have?" + '\n' +
+                        "Insert a number of mines, or a mine density followed by '%' " + 
+                        "(e.g. 20%)." + '\n' +
+                        "There must be between 1 and " + 
+                        (spaces - Board.FIRST_MOVE_SPACES) + " mines.");
+            String input = scan.next();
+            long mines = Parse_Number(input, 18);
+
+            if (mines < 0 && DENSITY.matcher(input).matches()) {
+                double density = Double.parseDouble(input.substring(0, input.length() - 1)) / 100;
+                mines = (long) (spaces * density);
+            }
+
+            if (mines >= 1 && mines <= spaces - Board.FIRST_MOVE_SPACES) return mines;
+
+            out.println('\n' + "Invalid number of mines. Please insert a new value." + '\n');
+        }
+    }
+
+    /**
+     * Sets a custom difficulty, with the number of rows, columns and mines chosen by the player.
+     * 
+     * @param minefield The board used in the game.
+     */
+    public void Custom_Selection(Board minefield) {
+        out.println('\n' + "Custom Difficulty selected..." + '\n');
+
+        int rows = Dimension_Selection("rows");
+        int columns = Dimension_Selection("columns");
+        long mines = Mines_Selection((long) rows * columns);
+
+        minefield.Set_Custom_Board(rows, columns, mines);
+    }
+
+    /**
+     * Option for the player to choose his/her next action. Option 0 clears a space, option 1
+     * places a flag, option 2 removes a flag, option 3 asks for a hint, option 4 pauses the game
+     * and option 5 saves it.
+     * 
+     * @return The option chosen by the player.
+     */
+    public int Option_Selection() {
+        boolean valid_option = false;
+        int option = -1;
+
+        while (valid_option == false) {
+            out.println();
+            out.print("List of actions: " + '\n' +
+                      "0: Clear a space." + '\n' +                   
+                      "1: Insert flag." + '\n' +
+                      "2: Remove flag." + '\n' +
+                      "3: Hint." + '\n' +
+                      "4: Pause." + '\n' +
+                      "5: Save." + '\n');
+            String option_input = scan.next();
+            long start = Metrics.Start();
+
+            option = (int) Parse_Number(option_input, 1);
+            if (option >= 0 && option <= 5) valid_option = true;
+
+            Metrics.End(Metrics.Phase.INPUT, start);
+
+            if (valid_option == false) {
+                out.println('\n' + "Invalid option! Please select a new option." + '\n');
+            }
+        }
+
+        return option;
+    }
+
+    /**
+     * Lets the user choose the desired space coordinates for his/her next action. Then, the 
+     * function validates the coordinates.
+     * 
+     * @param minefield The board used in the game.
+     * @return Integer array with the selected coordinates.
+     */
+    public int[] Space_Selection(Board minefield) {
+        boolean valid_coord = false;
+        String x_input, y_input;
+        int[] coord = new int[2];
+        
+        while (valid_coord == false) {
+            out.print("Insert a Row. Row must be between 0 and " + 
+                      (minefield.Display_Rows() - 1) + ": ");
+            x_input = scan.next();
+
+            out.print("Insert a Column. Column must be between 0 and " + 
+                      (minefield.Display_Columns() - 1) + ": ");
+            y_input = scan.next();
+            long start = Metrics.Start();
+
+            coord[0] = (int) Parse_Number(x_input, 9);
+            coord[1] = (int) Parse_Number(y_input, 9);
+            valid_coord = minefield.Valid_Coords(coord[0], coord[1]);
+
+            Metrics.End(Metrics.Phase.INPUT, start);
+
+            if (valid_coord == false) {
+                out.println("Invalid value(s). Please insert new coordinates.");
+            }
+        }
+
+        return coord;
+    }
+
+    /**
+     * Tells the player why a move didn't change the board.
+     * 
+     * @param out Where the message is printed.
+     * @param action The action chosen by the player.
+     * @param result The result of the move, as returned by Board.Apply.
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     */
+    public static void Move_Message(PrintStream out, Action action, MoveResult result, int x,
+                                    int y) {
+        switch (result) {
+            case ALREADY_REVEALED:
+                out.println("Row [" + x + "], Column [" + y + "] was already revealed.");
+
+                if (action == Action.FLAG) {
+                    out.println("Cannot insert a flag in this space.");
+                } else {
+                    out.println("Please insert another set of coordinates.");
+                }
+                break;
+            case HAS_FLAG:
+                out.println("Row [" + x + "], Column [" + y + "] contains a flag.");
+                out.println("Please remove the flag before clearing the space.");
+                break;
+            case ALREADY_FLAGGED:
+                out.println("Row [" + x + "], Column [" + y + "] already contains a flag.");
+                break;
+            case NO_FLAG:
+                out.println("Row [" + x + "], Column [" + y + "] doesn't contain a flag.");
+                out.println("Please insert another set of coordinates.");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Shows the player a space that can be proven safe, or proven to have a mine, from the spaces
+     * already revealed. Player flags are not trusted, so they don't count as proof. If nothing can
+     * be proven, shows the space least likely to have a mine.
+     * 
+     * @param minefield The board used in the game.
+     * @param solver The solver following the game.
+     * @param available If the board is small enough for the solver.
+     */
+    public void Hint_Message(Board minefield, Solver solver, boolean available) {
+        long space = available ? solver.Hint() : -1;
+        int x = (int) (space >>> 32);
+        int y = (int) space;
+
+        if (available == false) {
+            out.println("Hints are not available on boards this large.");
+        } else if (space == -1) {
+            SplittableRandom rng = new SplittableRandom(minefield.Display_Seed());
+
+            if (probability.Compute(minefield, solver, rng)) {
+                space = probability.Safest(rng);
+                x = (int) (space >>> 32);
+                y = (int) space;
+                out.printf("No space can be proven safe. Your best guess is Row [%d], " +
+                           "Column [%d], with a %.1f%% chance of a mine.%n", x, y,
+                           100 * probability.Mine_Probability(x, y));
+            } else {
+                out.println("No space can be proven safe or mined.");
+            }
+        } else if (solver.Is_Mine(x, y)) {
+            out.println("Hint: Row [" + x + "], Column [" + y + "] has a mine.");
+        } else {
+            out.println("Hint: Row [" + x + "], Column [" + y + "] is safe.");
+        }
+    }
+
+    /**
+     * The player sweeps the board, until he/she steps on a mine (defeat == true), or he/she clears
+     * all spaces without mines and flags all spaces with mines(victory == true). 
+     * 
+     * The game is saved on request, when it's paused, and after a move every AUTOSAVE_SECONDS, so
+     * it can be resumed if the program is closed. Sessions without a Snapshot can't be saved.
+     * 
+     * @param minefield The board used in the game.
+     * @param time The game's timer, paused on request, which also measures each move.
+     * @param name The player's name, kept with the saved game.
+     * @return If the player won the game.
+     */
+    public boolean MineSweep(Board minefield, TimeKeeping time, String name) {
+        MoveResult result = MoveResult.CLEARED;
+        Action[] actions = {Action.CLEAR, Action.FLAG, Action.REMOVE_FLAG};
+        boolean hints = solver.Reset(minefield);
+
+        // Takes in the spaces opened before the first move, if any.
+        if (hints) solver.Observe();
+
+        minefield.Print_Board();
+
+        while (result != MoveResult.VICTORY && result != MoveResult.DEFEAT) {   
+            //OBS: coord[0] stores the line (x) and coord[1] stores the column (y).
+            int coord[] = new int[2];
+            int option;
+
+            option = Option_Selection();
+
+            if (option == 3) {
+                long start = Metrics.Start();
+                Hint_Message(minefield, solver, hints);
+                Metrics.End(Metrics.Phase.HINT, start);
+                continue;
+            }
+
+            if (option == 4) {
+                time.Pause();
+                if (snapshot != null) snapshot.Save(minefield, time, name);
+                out.print("Game paused. Type anything to resume: ");
+                scan.next();
+                time.Resume();
+                continue;
+            }
+
+            if (option == 5) {
+                if (snapshot == null) {
+                    out.println("Games can't be saved here.");
+                } else if (snapshot.Save(minefield, time, name)) {
+                    out.println("Game saved.");
+                }
+                continue;
+            }
+
+            coord = Space_Selection(minefield);
+
+            time.Move_Start();
+            result = minefield.Apply(actions[option], coord[0], coord[1]);
+            Move_Message(out, actions[option], result, coord[0], coord[1]);
+
+            long start = Metrics.Start();
+            if (hints) solver.Observe();
+            Metrics.End(Metrics.Phase.SOLVER, start);
+
+            out.println();
+            start = Metrics.Start();
+            minefield.Print_Board();
+            Metrics.End(Metrics.Phase.PRINT, start);
+            out.println();
+            time.Move_End();
+
+            if (snapshot != null && result != MoveResult.VICTORY && result != MoveResult.DEFEAT) {
+                snapshot.Autosave(minefield, time, name, AUTOSAVE_SECONDS);
+            }
+        }
+
+        if (snapshot != null) snapshot.Delete();
+        return result == MoveResult.VICTORY;
+    }
+
+    /**
+     * Allows the player to include his/her score into a scoreboard, and displays the top 10 
+     * scores with the players that achieved them.
+     * 
+     * @param score The current scoreboard.
+     * @param name The player's name.
+     */
+    public void New_Score(Scoreboard score, String name) {
+        boolean valid_input = false;
+
+        while (valid_input == false) {
+            out.print("Do you wish to add your name and score on the Scoreboard?" + '\n' +
+                      "Yes: 1" + '\n' +
+                      "No: 2" + '\n');
+            long input = Parse_Number(scan.next(), 1);
+
+            if (input == 1) {
+                valid_input = true;
+                score.Write_Score(name);
+                score.Display_Top10();
+            }
+
+            if (input == 2) {
+                valid_input = true;
+                score.Display_Top10();
+            }
+
+            if (valid_input == false) {
+                out.println("Invalid option! Please select a new option.");
+            }
+
+            out.println("");
+        }
+    }
+
+    /**
+     * Allows the player to play another round of Minesweeper or end the program. 
+     * 
+     * @param name The player's name.
+     * @return If the player wishes to play another round.
+     */
+    public boolean Another_Game(String name) {
+        boolean valid_input = false;
+        long input;
+
+        while (valid_input == false) {
+            out.print(name + ", do you wish to play another round?" + '\n' + 
+                      "Yes: 1" + '\n' +
+                      "No: 2" + '\n');
+            input = Parse_Number(scan.next(), 1);
+            // The rest of the line is skipped, so Player_Name reads the next line.
+            scan.nextLine();
+
+            if (input == 1) return true;
+            if (input == 2) return false;
+
+            if (valid_input == false) {
+                out.println("Invalid option! Please select a new option.");
+            }
+
+            out.println("");
+        }
+
+        return false;
+    }
+
+    /**
+     * Offers to resume the game saved when the program was last closed, if any.
+     * 
+     * @param minefield The board used in the game.
+     * @param time The game's timer.
+     * @return The name of the player of the saved game, or null if no game was resumed.
+     */
+    public String Resume_Selection(Board minefield, TimeKeeping time) {
+        if (snapshot == null || snapshot.Exists() == false) return null;
+
+        while (true) {
+            out.print("A saved game was found. Do you want to resume it?" + '\n' +
+                      "Yes: 1" + '\n' +
+                      "No: 2" + '\n');
+            String input = scan.next();
+            scan.nextLine();
+
+            if (input.equals("2")) return null;
+
+            if (input.equals("1")) {
+                String name = snapshot.Load(minefield, time);
+                if (name == null) out.println("Sorry, the saved game couldn't be resumed.");
+
+                return name;
+            }
+
+            out.println("Invalid option! Please select a new option.");
+        }
+    }
+
+    /**
+     * Plays rounds until the player wants to stop, starting with the saved game if the player
+     * resumes it.
+     * 
+     * @param replay The log where the games are recorded, or null.
+     */
+    public void Play(Replay replay) {
+        Board minefield = new Board();
+        Scoreboard score = new Scoreboard(10, out);
+        TimeKeeping time = new TimeKeeping();
+        
+        boolean victory = false;
+        boolean play = true;
+        String name;
+
+        // A Server session ends with an exception when the player disconnects, and the board's
+        // storage goes back to the pool all the same.
+        try {
+            minefield.Set_Output(out);
+            if (replay != null) minefield.Set_Recorder(replay.New_Recorder());
+
+            String resumed = Resume_Selection(minefield, time);
+
+            while (play == true) {
+                if (resumed != null) {
+                    name = resumed;
+                    resumed = null;
+                    out.println('\n' + "Resuming the game, " + name + "..." + '\n');
+                } else {
+                    name = Player_Name();
+                    out.println('\n' + "Starting the game, " + name + "..." + '\n');
+                    out.println("Good luck!");
+
+                    time.Update_Time("start");
+                    Difficulty_Selection(minefield);
+                }
+
+                victory = MineSweep(minefield, time, name);     
+                time.Update_Time("finish");
+                if (replay != null) replay.Flush();
+                minefield.Reset_Display();
+
+                if (victory == true) {
+                    out.println("Congratulations! You cleared the whole field!");
+                } else {
+                    out.println("BOOM!! Er... You lost.");
+                    out.println("Revealing the whole minefield: ");
+                    out.println("");
+                    minefield.Print_AnswerBoard();
+                }
+
+                out.println();
+                time.Time_Taken(out);
+                score.Calculate_Score(minefield, time, victory);
+                if (victory == true) New_Score(score, name);
+                play = Another_Game(name);
+            }
+
+            out.println("Closing software... Thank you for playing!");
+            out.println("Check my github for other games/programs!");
+            out.flush();
+        } finally {
+            minefield.Release();
+        }
+    }
+
+    /**
+     * MAIN FUNCTION! With "--batch", plays a script instead, see Batch.
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--batch")) {
+            Batch.main(Arrays.copyOfRange(args, 1, args.length));
+            return ;
+        }
+
+        Game game = new Game(System.in, System.out, new Snapshot(Snapshot.DEFAULT_FILE));
+        Replay replay = null;
+
+        Metrics.Configure();
+
+        try {
+            replay = new Replay(Replay.DEFAULT_FILE);
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The replay log can't be written!");
+        }
+
+        for (int difficulty = 1; difficulty <= 5; difficulty++) {
+            generator.Prefill(difficulty);
+        }
+
+        game.Play(replay);
+        if (replay != null) replay.Close();
+        game.scan.close();
+    }
+}
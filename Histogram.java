@@ -0,0 +1,97 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Histogram class.
+ * A log-linear histogram of non-negative values, like HdrHistogram: exact up to 255, then 128
+ * buckets per power of two, so any value is known within 1% while the histogram keeps a fixed
+ * size, however many values it holds. Used for the scores in ScoreAnalytics and for the latencies
+ * in Metrics. Not thread-safe: each writer keeps its own histogram, and they're added up.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    final long counts[] = new long[BUCKETS];
+    long total, max;
+
+    /**
+     * Returns the bucket of a value.
+     */
+    static int Index(long value) {
+        if (value < 2 * SUB_COUNT) return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_COUNT + (int) ((value >>> shift) - SUB_COUNT);
+    }
+
+    /**
+     * Returns the smallest value of a bucket.
+     */
+    static long Lowest(int index) {
+        if (index < 2 * SUB_COUNT) return index;
+
+        int shift = index / SUB_COUNT - 1;
+        return (long) (SUB_COUNT + index % SUB_COUNT) << shift;
+    }
+
+    /**
+     * Adds a value, counting negative values as 0.
+     */
+    void Record(long value) {
+        value = Math.max(value, 0);
+        counts[Index(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds the values of another histogram to this one.
+     */
+    void Add(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes every value, so the histogram can be reused.
+     */
+    void Clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * Returns the value at a quantile, as the middle of its bucket.
+     * 
+     * @param quantile From 0 to 1.
+     * @return  The value, or 0 if the histogram is empty.
+     */
+    long Value_At(double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen < rank) continue;
+
+            long low = Lowest(i);
+            long high = (i + 1 < BUCKETS) ? Lowest(i + 1) : Long.MAX_VALUE;
+            return Math.min(low + (high - low) / 2, max);
+        }
+
+        return 0;
+    }
+}
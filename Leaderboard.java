@@ -0,0 +1,251 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Leaderboard class.
+ * The K best scores of a ScoreStore, kept in a memory-mapped file of fixed-width slots ordered
+ * from the best score to the worst, so they can be read without copying the file and updated in
+ * place.
+ * 
+ * A new score finds its slot with a binary search, the slots after it are moved one slot down
+ * inside the mapping and the last one falls off. The header holds K, the number of used slots, the
+ * number of store records already offered, and a CRC32C of all of them and the used slots, written
+ * after every update. If the checksum doesn't match when the file is opened (e.g. the game crashed
+ * in the middle of an update), K changed, or the leaderboard is ahead of its store, it's rebuilt
+ * from the store, which is always the source of truth. Records added to the store after the last
+ * update are offered again.
+ * 
+ * A slot is SLOT_SIZE bytes: the score, the record's number, the date, the difficulty, and the
+ * name as stored by the ScoreStore.
+ */
+public class Leaderboard {
+    static final int SLOT_SIZE = 48;
+    private static final int MAGIC = 0x4D53544B;
+    private static final int HEADER = 32;
+    private static final int NAME_OFFSET = 26;
+
+    private final int capacity;
+    private final MappedByteBuffer map;
+    private final CRC32C crc = new CRC32C();
+    private int count;
+    private long records;
+
+    /**
+     * Maps a leaderboard's file, creating it if it doesn't exist. Leaderboards are opened with
+     * ScoreStore.Open_Leaderboard, which fills them.
+     * 
+     * @param file The leaderboard's file.
+     * @param capacity K, the number of scores kept.
+     * @throws IOException If the file can't be read or written.
+     */
+    Leaderboard(Path file, int capacity) throws IOException {
+        this.capacity = capacity;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                   HEADER + (long) capacity * SLOT_SIZE);
+        }
+    }
+
+    /**
+     * Catches up with the store: reads the header, which another process may have changed,
+     * rebuilds the leaderboard if it's not valid, and offers the records added since its last
+     * update. Must be called with the store locked.
+     * 
+     * @param store The store the scores come from.
+     * @throws IOException If the store can't be read.
+     */
+    void Sync(ScoreStore store) throws IOException {
+        this.count = map.getInt(8);
+        this.records = map.getLong(16);
+
+        if (map.getInt(0) != MAGIC || map.getInt(4) != capacity || count < 0 ||
+            count > capacity || records > store.Records() || map.getLong(24) != Checksum()) {
+            Rebuild(store);
+        }
+
+        while (this.records < store.Records()) {
+            Offer(store.Read_Record(this.records));
+        }
+    }
+
+    /**
+     * Returns the CRC32C of the header fields and the used slots.
+     */
+    private long Checksum() {
+        crc.reset();
+        crc.update(map.slice(4, 16));
+        crc.update(map.slice(HEADER, count * SLOT_SIZE));
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the header, the last step of every update.
+     */
+    private void Write_Header() {
+        map.putInt(0, MAGIC);
+        map.putInt(4, capacity);
+        map.putInt(8, count);
+        map.putInt(12, 0);
+        map.putLong(16, records);
+        map.putLong(24, Checksum());
+    }
+
+    /**
+     * Fills the leaderboard with the best scores of the store.
+     */
+    private void Rebuild(ScoreStore store) throws IOException {
+        this.count = 0;
+
+        for (ScoreStore.Record record : store.Top_Records(capacity)) {
+            Write_Slot(count++, record);
+        }
+
+        this.records = store.Records();
+        Write_Header();
+    }
+
+    /**
+     * Writes a record into a slot.
+     */
+    private void Write_Slot(int slot, ScoreStore.Record record) {
+        byte name[] = record.name.getBytes(StandardCharsets.UTF_8);
+        int offset = HEADER + slot * SLOT_SIZE;
+
+        map.putLong(offset, record.score);
+        map.putLong(offset + 8, record.number);
+        map.putLong(offset + 16, record.time);
+        map.put(offset + 24, (byte) record.difficulty);
+        map.put(offset + 25, (byte) name.length);
+        map.put(offset + NAME_OFFSET, name);
+    }
+
+    /**
+     * Offers a record of the store to the leaderboard. Records must be offered in the order they
+     * were added to the store; a record offered before is ignored. Must be called with the store
+     * locked.
+     * 
+     * @param record The record.
+     * @return  If the score is one of the K best.
+     */
+    boolean Offer(ScoreStore.Record record) {
+        if (record.number < this.records) return false;
+
+        // Equal scores keep the order they were added in, so the new one goes after them.
+        int slot = Position(record.score);
+        this.records = record.number + 1;
+
+        if (slot >= capacity) {
+            Write_Header();
+            return false;
+        }
+
+        int moved = Math.min(count, capacity - 1) - slot;
+        int offset = HEADER + slot * SLOT_SIZE;
+        map.put(offset + SLOT_SIZE, map, offset, moved * SLOT_SIZE);
+
+        Write_Slot(slot, record);
+        if (count < capacity) count++;
+
+        Write_Header();
+        return true;
+    }
+
+    /**
+     * Returns the first slot whose score is smaller than a score, i.e. where the score would be
+     * inserted.
+     * 
+     * @param score The score.
+     * @return  The slot, from 0 to the number of used slots.
+     */
+    public int Position(long score) {
+        int low = 0, high = count;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (Display_Score(middle) >= score) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns the number of used slots.
+     */
+    public int Size() {
+        return this.count;
+    }
+
+    /**
+     * Returns K, the number of scores kept.
+     */
+    public int Display_Capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the score of a slot.
+     */
+    public long Display_Score(int slot) {
+        return map.getLong(HEADER + slot * SLOT_SIZE);
+    }
+
+    /**
+     * Returns the store's record number of a slot.
+     */
+    public long Display_Record(int slot) {
+        return map.getLong(HEADER + slot * SLOT_SIZE + 8);
+    }
+
+    /**
+     * Returns the player's name of a slot.
+     */
+    public String Display_Name(int slot) {
+        int offset = HEADER + slot * SLOT_SIZE;
+        byte name[] = new byte[map.get(offset + 25)];
+
+        map.get(offset + NAME_OFFSET, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a read-only view of the used slots, straight over the mapped file, for readers that
+     * decode the slots themselves.
+     * 
+     * @return  The slots, SLOT_SIZE bytes each: the score (long), the record's number (long), the
+     * date in epoch milliseconds (long), the difficulty (byte), the length of the name (byte) and
+     * the name in UTF-8.
+     */
+    public ByteBuffer Slots() {
+        return map.slice(HEADER, count * SLOT_SIZE).asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the mapped file to the disk.
+     */
+    public void Close() {
+        map.force();
+    }
+}
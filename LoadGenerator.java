@@ -0,0 +1,345 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * LoadGenerator class.
+ * Simulates many players connected to a Server at once, to see how many sessions it holds and how
+ * fast it answers them. Each simulated player asks for a hint before every move and plays it: a
+ * safe space is cleared, a mine is flagged, and if nothing can be deduced, the best guess is
+ * cleared. So the players win most games on the easier difficulties, and their scores are written
+ * to the server's score store like any player's.
+ * 
+ * All the players are driven by one thread with a Selector: the server's output is read until it
+ * ends with one of the game's prompts, which is then answered. The time from an answer to the
+ * next prompt is kept in a Histogram. At most MAX_CONNECTING players wait for the server's first
+ * prompt at a time, since connections beyond the server's accept queue are dropped by the kernel,
+ * and players who hear nothing from the server for TIMEOUT_SECONDS give up.
+ * 
+ * Usage: java LoadGenerator [sessions] [concurrent sessions] [games per session] [difficulty]
+ *                           [port | socket file]
+ */
+public class LoadGenerator {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_CONNECTING = 128;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private final SocketAddress address;
+    private final long sessions;
+    private final int concurrent;
+    private final int games;
+    private final int difficulty;
+    private final int rows, columns;
+
+    private final Selector selector;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final Histogram latency = new Histogram();
+    private final SplittableRandom rng = new SplittableRandom(2022);
+    private long started, open, connecting, finished, failed;
+    private long wins, losses;
+
+    /**
+     * A simulated player.
+     */
+    private static class Player {
+        final SocketChannel channel;
+        final long number;
+        final StringBuilder text = new StringBuilder();
+        int games_left;
+        boolean hint_asked, greeted;
+        long answered, heard;
+
+        Player(SocketChannel channel, long number, int games) {
+            this.channel = channel;
+            this.number = number;
+            this.games_left = games;
+            this.heard = System.nanoTime();
+        }
+    }
+
+    /**
+     * Prepares a run.
+     * 
+     * @param address The server's address.
+     * @param sessions Number of sessions played in all.
+     * @param concurrent Number of sessions connected at the same time.
+     * @param games Number of games played per session.
+     * @param difficulty Difficulty of the games, from 1 to 5.
+     * @throws IOException If the selector can't be opened.
+     */
+    public LoadGenerator(SocketAddress address, long sessions, int concurrent, int games,
+                         int difficulty) throws IOException {
+        Board board = new Board();
+        board.Set_Difficulty(difficulty);
+
+        this.address = address;
+        this.sessions = sessions;
+        this.concurrent = concurrent;
+        this.games = games;
+        this.difficulty = difficulty;
+        this.rows = board.Display_Rows();
+        this.columns = board.Display_Columns();
+        this.selector = Selector.open();
+    }
+
+    /**
+     * Connects the next player.
+     */
+    private void Connect() {
+        long number = started++;
+
+        try {
+            SocketChannel channel = (address instanceof InetSocketAddress) ? SocketChannel.open() :
+                                    SocketChannel.open(StandardProtocolFamily.UNIX);
+
+            channel.configureBlocking(false);
+            Player player = new Player(channel, number, games);
+
+            if (channel.connect(address)) {
+                channel.register(selector, SelectionKey.OP_READ, player);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, player);
+            }
+
+            open++;
+            connecting++;
+        } catch (IOException e) {
+            failed++;
+        }
+    }
+
+    /**
+     * Ends a player's session.
+     * 
+     * @param player The player.
+     * @param completed If the server ended the session, after the player quit.
+     */
+    private void Disconnect(Player player, boolean completed) {
+        try {
+            player.channel.close();
+        } catch (IOException e) {
+            // Closed anyway.
+        }
+
+        open--;
+        if (player.greeted == false) connecting--;
+
+        if (completed) {
+            finished++;
+        } else {
+            failed++;
+        }
+    }
+
+    /**
+     * Checks if the text ends with a suffix.
+     */
+    private static boolean Ends_With(StringBuilder text, String suffix) {
+        int start = text.length() - suffix.length();
+        return start >= 0 && text.indexOf(suffix, start) == start;
+    }
+
+    /**
+     * Reads the number between the brackets after a label, e.g. "Row [".
+     * 
+     * @return  The number, or -1 if the label isn't found after the given position.
+     */
+    private static int Bracket_Number(StringBuilder text, String label, int from) {
+        int start = text.indexOf(label, from);
+        if (start < 0) return -1;
+
+        int value = 0;
+        for (int i = start + label.length(); text.charAt(i) != ']'; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+
+        return value;
+    }
+
+    /**
+     * Chooses the player's answer to the server's output, if it ends with a prompt.
+     * 
+     * @param player The player.
+     * @return  The answer, or null if the prompt hasn't arrived whole yet.
+     */
+    private String Answer(Player player) {
+        StringBuilder text = player.text;
+
+        if (Ends_With(text, "Please insert your name: ")) return "player" + player.number;
+        if (Ends_With(text, "5: Very Hard.\n")) return "" + difficulty;
+
+        if (Ends_With(text, "No: 2\n")) {
+            if (text.indexOf("without guessing") >= 0) return "2";
+            if (text.indexOf("add your name and score") >= 0) return "1";
+
+            return (--player.games_left > 0) ? "1" : "2";
+        }
+
+        if (Ends_With(text, "5: Save.\n") == false) return null;
+
+        if (player.hint_asked == false) {
+            player.hint_asked = true;
+            return "3";
+        }
+
+        player.hint_asked = false;
+        int hint = text.indexOf("Hint: ");
+        int guess = text.indexOf("best guess is ");
+
+        if (hint >= 0) {
+            String action = (text.indexOf("has a mine.", hint) >= 0) ? "1 " : "0 ";
+            return action + Bracket_Number(text, "Row [", hint) + " " +
+                   Bracket_Number(text, "Column [", hint);
+        }
+
+        if (guess >= 0) {
+            return "0 " + Bracket_Number(text, "Row [", guess) + " " +
+                   Bracket_Number(text, "Column [", guess);
+        }
+
+        return "0 " + rng.nextInt(rows) + " " + rng.nextInt(columns);
+    }
+
+    /**
+     * Reads what the server sent to a player, and answers it if it ended with a prompt.
+     */
+    private void Read(Player player) throws IOException {
+        buffer.clear();
+        int read = player.channel.read(buffer);
+
+        if (read < 0) {
+            // The server closes the session once the player declines another round.
+            Disconnect(player, player.text.indexOf("Thank you for playing!") >= 0);
+            return ;
+        }
+
+        if (player.greeted == false) {
+            player.greeted = true;
+            connecting--;
+        }
+
+        player.heard = System.nanoTime();
+        buffer.flip();
+        while (buffer.hasRemaining()) player.text.append((char) buffer.get());
+
+        String answer = Answer(player);
+        if (answer == null) return ;
+
+        if (player.text.indexOf("Congratulations!") >= 0) wins++;
+        if (player.text.indexOf("BOOM!!") >= 0) losses++;
+
+        long now = System.nanoTime();
+        if (player.answered != 0) latency.Record(now - player.answered);
+
+        player.answered = now;
+        player.text.setLength(0);
+
+        // The server has read everything sent before it prompted, so a line always fits in the
+        // socket's buffer and is written whole.
+        ByteBuffer line = ByteBuffer.wrap((answer + "\n").getBytes(StandardCharsets.US_ASCII));
+        player.channel.write(line);
+
+        if (line.hasRemaining()) Disconnect(player, false);
+    }
+
+    /**
+     * Disconnects the players who haven't heard from the server for TIMEOUT_SECONDS.
+     */
+    private void Time_Out() {
+        long limit = System.nanoTime() - TIMEOUT_SECONDS * 1_000_000_000L;
+
+        for (SelectionKey key : selector.keys()) {
+            Player player = (Player) key.attachment();
+            if (key.isValid() && player.heard < limit) Disconnect(player, false);
+        }
+    }
+
+    /**
+     * Plays every session, keeping the given number of them connected at a time.
+     */
+    public void Run() throws IOException {
+        long checked = System.nanoTime();
+
+        while (started < sessions || open > 0) {
+            while (started < sessions && open < concurrent && connecting < MAX_CONNECTING) {
+                Connect();
+            }
+
+            selector.select(1000);
+
+            for (SelectionKey key : selector.selectedKeys()) {
+                Player player = (Player) key.attachment();
+
+                try {
+                    if (key.isConnectable()) {
+                        player.channel.finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                    } else if (key.isReadable()) {
+                        Read(player);
+                    }
+                } catch (IOException e) {
+                    Disconnect(player, false);
+                }
+            }
+
+            selector.selectedKeys().clear();
+
+            if (System.nanoTime() - checked > 1_000_000_000L) {
+                Time_Out();
+                checked = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Prints the totals of the run.
+     * 
+     * @param seconds Time the run took.
+     */
+    public void Print_Totals(double seconds) {
+        System.out.printf("%d sessions: %d completed, %d failed. %d games: %d won, %d lost.%n",
+                          started, finished, failed, wins + losses, wins, losses);
+        System.out.printf("%d answers in %.3f s (%.0f sessions/s, %.0f answers/s).%n",
+                          latency.total, seconds, finished / seconds, latency.total / seconds);
+        System.out.printf("Latency: %.3f ms (p50), %.3f ms (p90), %.3f ms (p99), %.3f ms (max).%n",
+                          latency.Value_At(0.5) / 1e6, latency.Value_At(0.9) / 1e6,
+                          latency.Value_At(0.99) / 1e6, latency.max / 1e6);
+    }
+
+    /**
+     * MAIN FUNCTION!
+     */
+    public static void main(String[] args) throws IOException {
+        long sessions = (args.length > 0) ? Long.parseLong(args[0]) : 10000;
+        int concurrent = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+        int games = (args.length > 2) ? Integer.parseInt(args[2]) : 1;
+        int difficulty = (args.length > 3) ? Integer.parseInt(args[3]) : 1;
+        SocketAddress address = Server.Address((args.length > 4) ? args[4] :
+                                               "" + Server.DEFAULT_PORT);
+
+        LoadGenerator generator = new LoadGenerator(address, sessions, concurrent, games,
+                                                    difficulty);
+        long start = System.nanoTime();
+
+        System.out.println("Playing " + sessions + " sessions, " + concurrent + " at a time, on " +
+                           address + ".");
+        generator.Run();
+        generator.Print_Totals((System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,318 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+/**
+ * Metrics class.
+ * Measures where the time of each move goes: the parsing of the player's input, Clear_Space,
+ * the flags, the Victory check, the Solver, the hints and Print_Board, each in a Histogram of
+ * nanoseconds, plus the number of moves, the spaces revealed per move and the bytes allocated for
+ * the board.
+ * 
+ * Metrics are off unless the JVM is started with -Dminesweeper.metrics=true. ENABLED is a
+ * constant, so when it's false the JIT removes the measuring code, and the cost is close to 0.
+ * When on, each thread writes its own histograms, so nothing is shared or locked on the moves,
+ * and a dump adds them up. A thread that stops playing, like a Server session that ends, calls
+ * Release: its histograms are added to the totals of the threads gone and reused by the next
+ * thread, so the memory follows the threads playing at a time rather than every thread ever.
+ * 
+ * The metrics can be dumped as text or as a JSON line, every few seconds with
+ * -Dminesweeper.metrics.interval=[seconds], to System.err or to the file given by
+ * -Dminesweeper.metrics.file, in the format given by -Dminesweeper.metrics.format=text|json. They
+ * are also dumped when the program ends, and sent to Java Flight Recorder as the periodic event
+ * "minesweeper.Phase", one per phase.
+ */
+public class Metrics {
+    static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+    /**
+     * The phases of a move that are measured.
+     */
+    enum Phase { INPUT, CLEAR, FLAG, VICTORY, SOLVER, HINT, PRINT }
+
+    private static final Phase PHASES[] = Phase.values();
+    private static final Set<Recorder> RECORDERS = ConcurrentHashMap.newKeySet();
+    private static final ConcurrentLinkedQueue<Recorder> FREE =
+        new ConcurrentLinkedQueue<Recorder>();
+    private static final Recorder RELEASED = new Recorder();
+    private static final ThreadLocal<Recorder> RECORDER = ThreadLocal.withInitial(() -> {
+        Recorder recorder = FREE.poll();
+        if (recorder == null) recorder = new Recorder();
+
+        RECORDERS.add(recorder);
+        return recorder;
+    });
+
+    /**
+     * The metrics written by one thread.
+     */
+    static class Recorder {
+        final Histogram phases[] = new Histogram[PHASES.length];
+        final Histogram revealed = new Histogram();
+        long board_bytes;
+
+        Recorder() {
+            for (int i = 0; i < phases.length; i++) phases[i] = new Histogram();
+        }
+
+        /**
+         * Adds the metrics of another thread to these.
+         */
+        Recorder Add(Recorder other) {
+            for (int i = 0; i < phases.length; i++) phases[i].Add(other.phases[i]);
+
+            revealed.Add(other.revealed);
+            board_bytes = Math.max(board_bytes, other.board_bytes);
+            return this;
+        }
+
+        /**
+         * Removes every metric, so the recorder can be reused by another thread.
+         */
+        void Clear() {
+            for (Histogram phase : phases) phase.Clear();
+
+            revealed.Clear();
+            board_bytes = 0;
+        }
+    }
+
+    /**
+     * A periodic Flight Recorder event with the totals of one phase.
+     */
+    @Name("minesweeper.Phase")
+    @Label("Minesweeper Phase")
+    @Category("Minesweeper")
+    @Period("1 s")
+    static class Phase_Event extends Event {
+        @Label("Phase")
+        String phase;
+
+        @Label("Count")
+        long count;
+
+        @Label("Median")
+        @Timespan(Timespan.NANOSECONDS)
+        long p50;
+
+        @Label("99th Percentile")
+        @Timespan(Timespan.NANOSECONDS)
+        long p99;
+
+        @Label("Maximum")
+        @Timespan(Timespan.NANOSECONDS)
+        long max;
+    }
+
+    /**
+     * Returns the start of a measured phase.
+     * 
+     * @return  The current System.nanoTime, or 0 if the metrics are off.
+     */
+    public static long Start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time of a phase.
+     * 
+     * @param phase The phase.
+     * @param start What Start returned when the phase started.
+     */
+    public static void End(Phase phase, long start) {
+        if (ENABLED == false) return ;
+
+        RECORDER.get().phases[phase.ordinal()].Record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a move.
+     * 
+     * @param revealed Number of spaces revealed or changed by the move.
+     * @param board_bytes Bytes allocated for the board.
+     */
+    public static void Move(long revealed, long board_bytes) {
+        if (ENABLED == false) return ;
+
+        Recorder recorder = RECORDER.get();
+        recorder.revealed.Record(revealed);
+        recorder.board_bytes = board_bytes;
+    }
+
+    /**
+     * Adds the metrics of the current thread to the totals and frees its recorder for the next
+     * thread. Called when a thread stops playing, e.g. when a Server session ends.
+     */
+    public static void Release() {
+        if (ENABLED == false) return ;
+
+        Recorder recorder = RECORDER.get();
+
+        synchronized (RELEASED) {
+            RELEASED.Add(recorder);
+            RECORDERS.remove(recorder);
+        }
+
+        RECORDER.remove();
+        recorder.Clear();
+        FREE.add(recorder);
+    }
+
+    /**
+     * Adds up the metrics of every thread, the ones gone included. Threads may be writing at the
+     * same time, so the result can be a few moves behind.
+     */
+    static Recorder Snapshot() {
+        Recorder total = new Recorder();
+
+        synchronized (RELEASED) {
+            total.Add(RELEASED);
+            for (Recorder recorder : RECORDERS) total.Add(recorder);
+        }
+
+        return total;
+    }
+
+    /**
+     * Prints the metrics as text, one line per phase, with the times in microseconds.
+     * 
+     * @param out Where the metrics are printed.
+     */
+    public static void Dump_Text(PrintStream out) {
+        Recorder total = Snapshot();
+
+        out.printf("%-8s %12s %12s %12s %12s %12s%n", "Phase", "Count", "p50 (us)", "p90 (us)",
+                   "p99 (us)", "Max (us)");
+
+        for (Phase phase : PHASES) {
+            Histogram histogram = total.phases[phase.ordinal()];
+
+            out.printf("%-8s %12d %12.1f %12.1f %12.1f %12.1f%n", phase, histogram.total,
+                       histogram.Value_At(0.5) / 1e3, histogram.Value_At(0.9) / 1e3,
+                       histogram.Value_At(0.99) / 1e3, histogram.max / 1e3);
+        }
+
+        out.printf("Moves: %d, spaces revealed: %d per move (p50), %d (p99), %d (max); " +
+                   "board: %d bytes.%n", total.revealed.total, total.revealed.Value_At(0.5),
+                   total.revealed.Value_At(0.99), total.revealed.max, total.board_bytes);
+        out.flush();
+    }
+
+    /**
+     * Prints the metrics as a single JSON line, with the times in nanoseconds.
+     * 
+     * @param out Where the metrics are printed.
+     */
+    public static void Dump_Json(PrintStream out) {
+        Recorder total = Snapshot();
+        StringBuilder json = new StringBuilder("{\"time\":").append(System.currentTimeMillis());
+
+        json.append(",\"phases\":{");
+
+        for (Phase phase : PHASES) {
+            Histogram histogram = total.phases[phase.ordinal()];
+
+            if (phase.ordinal() > 0) json.append(',');
+            json.append('"').append(phase.name().toLowerCase()).append("\":{");
+            json.append("\"count\":").append(histogram.total);
+            json.append(",\"p50\":").append(histogram.Value_At(0.5));
+            json.append(",\"p90\":").append(histogram.Value_At(0.9));
+            json.append(",\"p99\":").append(histogram.Value_At(0.99));
+            json.append(",\"max\":").append(histogram.max).append('}');
+        }
+
+        json.append("},\"moves\":").append(total.revealed.total);
+        json.append(",\"revealed_p50\":").append(total.revealed.Value_At(0.5));
+        json.append(",\"revealed_p99\":").append(total.revealed.Value_At(0.99));
+        json.append(",\"revealed_max\":").append(total.revealed.max);
+        json.append(",\"board_bytes\":").append(total.board_bytes).append('}');
+
+        out.println(json);
+        out.flush();
+    }
+
+    /**
+     * Sends one Flight Recorder event per phase, if a recording asked for them.
+     */
+    private static void Emit_Events() {
+        Recorder total = Snapshot();
+
+        for (Phase phase : PHASES) {
+            Histogram histogram = total.phases[phase.ordinal()];
+            Phase_Event event = new Phase_Event();
+
+            event.phase = phase.name();
+            event.count = histogram.total;
+            event.p50 = histogram.Value_At(0.5);
+            event.p99 = histogram.Value_At(0.99);
+            event.max = histogram.max;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts the dumps asked for by the system properties, if the metrics are on: the periodic
+     * dump, the dump at the end of the program and the Flight Recorder events.
+     */
+    public static void Configure() {
+        if (ENABLED == false) return ;
+
+        long interval = Long.getLong("minesweeper.metrics.interval", 0);
+        boolean json = "json".equals(System.getProperty("minesweeper.metrics.format"));
+        String file = System.getProperty("minesweeper.metrics.file");
+        PrintStream out = System.err;
+
+        if (file != null) {
+            try {
+                out = new PrintStream(new FileOutputStream(file, true), true);
+            } catch (FileNotFoundException e) {
+                System.err.println("ERROR CODE 2: " + file + " can't be written!");
+            }
+        }
+
+        PrintStream target = out;
+        Runnable dump = () -> {
+            if (json) {
+                Dump_Json(target);
+            } else {
+                Dump_Text(target);
+            }
+        };
+
+        if (interval > 0) {
+            ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "metrics-dump");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            timer.scheduleAtFixedRate(dump, interval, interval, TimeUnit.SECONDS);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(dump, "metrics-exit"));
+        FlightRecorder.addPeriodicEvent(Phase_Event.class, Metrics::Emit_Events);
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+/**
+ * MoveResult enum.
+ * The outcome of applying an Action to the board with Board.Apply.
+ */
+public enum MoveResult {
+    /** The space, and possibly its empty region, was revealed. */
+    CLEARED,
+    /** A flag was inserted. */
+    FLAGGED,
+    /** A flag was removed. */
+    FLAG_REMOVED,
+    /** The player revealed a mine and lost the game. */
+    DEFEAT,
+    /** The move cleared or flagged the last remaining space, and the player won the game. */
+    VICTORY,
+    /** Nothing changed: the space was already revealed. */
+    ALREADY_REVEALED,
+    /** Nothing changed: the space has a flag, which must be removed before clearing it. */
+    HAS_FLAG,
+    /** Nothing changed: the space already has a flag. */
+    ALREADY_FLAGGED,
+    /** Nothing changed: the space doesn't have a flag to be removed. */
+    NO_FLAG,
+    /** Nothing changed: the coordinates are outside of the board. */
+    INVALID_COORDS
+}
@@ -0,0 +1,293 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NoGuessGenerator class.
+ * Makes boards of difficulties 1 to 5 that can be solved by logic alone, starting from the space
+ * in the middle of the board, which is always a '*'.
+ * 
+ * Each candidate starts as a normal board, whose first move on the middle keeps the mines away
+ * from it, and is played by the Solver. Whenever the Solver gets stuck, a random unknown space of
+ * the frontier is changed: if it has a mine, the mine is moved away from the frontier, otherwise a
+ * mine is moved onto it. The candidate is then played again from the start, up to MAX_REPAIRS
+ * times. The layout stays random, but the frontier gets whatever it takes to be solvable.
+ * 
+ * Candidates are tried in parallel, one per core, and the generation stops at the first one that
+ * is solved. Candidate i of a generation uses the seed Simulator.Game_Seed(seed, difficulty, i),
+ * and the result is always the verified candidate with the lowest i, so the same seed gives the
+ * same board no matter the number of threads.
+ * 
+ * A few boards per difficulty are kept ready in a cache, which is refilled in the background, so
+ * a game can start without waiting for the generation.
+ */
+public class NoGuessGenerator {
+    private static final int MAX_REPAIRS = 2000;
+    private static final long MAX_CANDIDATES = 1L << 16;
+    private static final int CACHE_SIZE = 2;
+
+    private static final ThreadLocal<Solver> SOLVERS = ThreadLocal.withInitial(Solver::new);
+
+    private final ForkJoinPool pool;
+    private final ExecutorService refill;
+    private final List<ArrayBlockingQueue<Board>> cache;
+
+    /**
+     * Creates a generator.
+     * 
+     * @param threads Number of candidates tried at the same time.
+     */
+    public NoGuessGenerator(int threads) {
+        this.pool = new ForkJoinPool(threads);
+        this.refill = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "no-guess-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.cache = new ArrayList<ArrayBlockingQueue<Board>>();
+
+        for (int difficulty = 0; difficulty <= 5; difficulty++) {
+            cache.add(new ArrayBlockingQueue<Board>(CACHE_SIZE));
+        }
+    }
+
+    /**
+     * Returns the space every board made by the generator is opened on.
+     * 
+     * @param minefield A board made by the generator.
+     * @return  The space, with the line in the upper 32 bits and the column in the lower 32 bits.
+     */
+    public static long Start(Board minefield) {
+        return ((long) (minefield.Display_Rows() / 2) << 32) | (minefield.Display_Columns() / 2);
+    }
+
+    /**
+     * Makes a board that can be solved without guessing.
+     * 
+     * @param difficulty Difficulty from 1 to 5.
+     * @param seed Seed of the generation.
+     * @return  A new board, ready to be played, or null if the difficulty is invalid or no
+     * candidate could be solved.
+     */
+    public Board Generate(int difficulty, long seed) {
+        if (difficulty < 1 || difficulty > 5) return null;
+
+        int workers = pool.getParallelism();
+        AtomicLong next = new AtomicLong();
+        AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+        List<Callable<Board>> tasks = new ArrayList<Callable<Board>>();
+
+        for (int i = 0; i < workers; i++) {
+            tasks.add(() -> {
+                Board candidate = new Board();
+
+                while (true) {
+                    long index = next.getAndIncrement();
+                    if (index > best.get() || index >= MAX_CANDIDATES) return null;
+
+                    long candidate_seed = Simulator.Game_Seed(seed, difficulty, index);
+
+                    if (Build(candidate, difficulty, candidate_seed)) {
+                        best.accumulateAndGet(index, Math::min);
+                        return candidate;
+                    }
+                }
+            });
+        }
+
+        Board result = null;
+
+        try {
+            List<Future<Board>> futures = pool.invokeAll(tasks);
+            long winner = Simulator.Game_Seed(seed, difficulty, best.get());
+
+            for (Future<Board> future : futures) {
+                Board candidate = future.get();
+                if (candidate != null && candidate.Display_Seed() == winner) result = candidate;
+            }
+        } catch (Exception e) {
+            System.err.println("ERROR CODE 8: The board couldn't be generated!");
+            return null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Turns a board into a candidate and repairs it until the Solver can solve it.
+     * 
+     * @param candidate Board used for the candidate.
+     * @param difficulty Difficulty from 1 to 5.
+     * @param seed Seed of the candidate.
+     * @return  If the candidate can be solved. If so, it's left ready to be played.
+     */
+    private static boolean Build(Board candidate, int difficulty, long seed) {
+        Solver solver = SOLVERS.get();
+        SplittableRandom rng = new SplittableRandom(seed);
+
+        candidate.Set_Seed(seed);
+        candidate.Set_Difficulty(difficulty);
+
+        for (int repair = 0; repair <= MAX_REPAIRS; repair++) {
+            candidate.Restart();
+            if (Solve(candidate, solver)) return candidate.Restart();
+
+            if (Repair(candidate, solver, rng) == false) return false;
+        }
+
+        return false;
+    }
+
+    /**
+     * Plays a candidate from the starting space with the Solver, without ever guessing.
+     * 
+     * @return  If the candidate was won. Otherwise, it's left where the Solver got stuck.
+     */
+    private static boolean Solve(Board candidate, Solver solver) {
+        long start = Start(candidate);
+
+        solver.Reset(candidate);
+        MoveResult result = candidate.Apply(Action.CLEAR, (int) (start >>> 32), (int) start);
+        solver.Observe();
+
+        while (result != MoveResult.VICTORY) {
+            long space = solver.Next_Safe();
+            Action action = Action.CLEAR;
+
+            if (space == -1) {
+                space = solver.Next_Mine();
+                action = Action.FLAG;
+            }
+
+            if (space == -1) {
+                if (solver.Count_Rule()) continue;
+                return false;
+            }
+
+            result = candidate.Apply(action, (int) (space >>> 32), (int) space);
+            solver.Observe();
+        }
+
+        return true;
+    }
+
+    /**
+     * Changes a random unknown space of the frontier where the Solver got stuck: moves its mine to
+     * an unknown space away from the frontier, or moves a mine onto it from there. If the space has
+     * no counterpart away from the frontier, another space of the frontier is used.
+     * 
+     * @return  If a mine was moved.
+     */
+    private static boolean Repair(Board candidate, Solver solver, SplittableRandom rng) {
+        int rows = candidate.Display_Rows();
+        int columns = candidate.Display_Columns();
+        int frontier[] = new int[rows * columns];
+        int interior[] = new int[rows * columns];
+        int frontier_count = 0, interior_count = 0;
+
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                if (solver.Is_Unknown(x, y) == false) continue;
+
+                if (Next_To_Number(candidate, x, y)) {
+                    frontier[frontier_count++] = x * columns + y;
+                } else {
+                    interior[interior_count++] = x * columns + y;
+                }
+            }
+        }
+
+        if (frontier_count == 0) return false;
+
+        int space = frontier[rng.nextInt(frontier_count)];
+        boolean mine = candidate.Display_Answer(space / columns, space % columns) == 'X';
+        int others[] = (interior_count > 0) ? interior : frontier;
+        int others_count = (interior_count > 0) ? interior_count : frontier_count;
+        int first = rng.nextInt(others_count);
+
+        for (int i = 0; i < others_count; i++) {
+            int other = others[(first + i) % others_count];
+            boolean other_mine = candidate.Display_Answer(other / columns, other % columns) == 'X';
+            if (other_mine == mine) continue;
+
+            int from = mine ? space : other;
+            int to = mine ? other : space;
+            return candidate.Move_Mine(from / columns, from % columns, to / columns, to % columns);
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks if a space is next to a revealed number.
+     */
+    private static boolean Next_To_Number(Board candidate, int x, int y) {
+        int last_x = Math.min(x + 1, candidate.Display_Rows() - 1);
+        int last_y = Math.min(y + 1, candidate.Display_Columns() - 1);
+
+        for (int i = Math.max(x - 1, 0); i <= last_x; i++) {
+            for (int j = Math.max(y - 1, 0); j <= last_y; j++) {
+                int nearby = Solver.Number(candidate.Display_Space(i, j));
+                if (nearby >= 0 && nearby <= 8) return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a board from the cache, or makes one if the cache is empty, and refills the cache in
+     * the background.
+     * 
+     * @param difficulty Difficulty from 1 to 5.
+     * @return  A board that can be solved without guessing, or null if none could be made.
+     */
+    public Board Take(int difficulty) {
+        if (difficulty < 1 || difficulty > 5) return null;
+
+        Board minefield = cache.get(difficulty).poll();
+
+        if (minefield == null) {
+            minefield = Generate(difficulty, ThreadLocalRandom.current().nextLong());
+        }
+
+        Prefill(difficulty);
+        return minefield;
+    }
+
+    /**
+     * Fills the cache of a difficulty in the background.
+     * 
+     * @param difficulty Difficulty from 1 to 5.
+     */
+    public void Prefill(int difficulty) {
+        if (difficulty < 1 || difficulty > 5) return ;
+
+        ArrayBlockingQueue<Board> boards = cache.get(difficulty);
+
+        refill.execute(() -> {
+            while (boards.remainingCapacity() > 0) {
+                Board minefield = Generate(difficulty, ThreadLocalRandom.current().nextLong());
+                if (minefield == null || boards.offer(minefield) == false) return ;
+            }
+        });
+    }
+}
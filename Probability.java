@@ -0,0 +1,636 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Probability class.
+ * Computes the chance of each hidden space having a mine, for when the Solver can't prove any
+ * space safe and the player (or the Bot) has to guess.
+ * 
+ * The frontier is made of the unknown hidden spaces next to a revealed number. Spaces next to
+ * exactly the same numbers are interchangeable, so they are grouped, and a group of g spaces with
+ * m mines counts as C(g, m) layouts instead of being enumerated space by space. The groups are
+ * split into components, where two groups are in the same component if a chain of numbers links
+ * them, and each component is enumerated on its own: for every number of mines k, the number of
+ * layouts that satisfy its numbers and, for each group, how many mines those layouts place in it.
+ * The components are then combined by convolution, with every total weighted by the number of
+ * ways of placing the remaining mines in the unknown spaces away from the frontier,
+ * C(interior, mines left - frontier mines). So the work grows with the size of the components,
+ * never with the number of layouts of the whole board.
+ * 
+ * Components with more than MAX_EXACT groups, or that can't be enumerated within NODE_BUDGET
+ * steps, are sampled instead, with randomized searches. Their probabilities are approximate.
+ */
+public class Probability {
+    private static final int MAX_EXACT = 64;
+    private static final long NODE_BUDGET = 1L << 16;
+    private static final int SAMPLES = 200;
+    private static final long SAMPLE_BUDGET = 1L << 10;
+    private static final double BINOMIAL[][] = new double[9][9];
+
+    static {
+        for (int n = 0; n <= 8; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++) BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + 
+                                                           ((k < n) ? BINOMIAL[n - 1][k] : 0);
+        }
+    }
+
+    /**
+     * A component of the frontier and its enumeration.
+     */
+    static class Component {
+        final int members[];
+        final int capacity;
+        final double weights[];
+        final double mine_sums[];
+        boolean unsolved;
+
+        /**
+         * Creates an empty component.
+         * 
+         * @param members Groups of the component, in search order.
+         * @param capacity Number of spaces in the groups.
+         */
+        Component(int members[], int capacity) {
+            this.members = members;
+            this.capacity = capacity;
+            this.weights = new double[capacity + 1];
+            this.mine_sums = new double[members.length * (capacity + 1)];
+        }
+
+        /**
+         * Adds the layouts of the current assignment, which place the given number of mines.
+         * 
+         * @param assigned Mines assigned to each group.
+         * @param mines Mines assigned to the whole component.
+         * @param weight Number of layouts of the assignment.
+         */
+        void Record(int assigned[], int mines, double weight) {
+            weights[mines] += weight;
+            for (int i = 0; i < members.length; i++) {
+                mine_sums[i * (capacity + 1) + mines] += weight * assigned[members[i]];
+            }
+        }
+
+        /**
+         * Forgets every recorded layout.
+         */
+        void Clear() {
+            Arrays.fill(weights, 0);
+            Arrays.fill(mine_sums, 0);
+        }
+    }
+
+    private Board board;
+    private Solver solver;
+    private int rows, columns;
+    private int var_of[] = new int[0];
+
+    private int vars;
+    private int var_cell[] = new int[64];
+    private int var_constraints[] = new int[64 * 8];
+    private int var_constraint_count[] = new int[64];
+    private int var_group[] = new int[64];
+
+    private int groups;
+    private int group_var[] = new int[64];
+    private int group_size[] = new int[64];
+    private int group_assigned[] = new int[64];
+    private double group_probability[] = new double[64];
+
+    private int constraints;
+    private int constraint_vars[] = new int[64 * 8];
+    private int constraint_size[] = new int[64];
+    private int constraint_need[] = new int[64];
+    private int constraint_mines[] = new int[64];
+    private int constraint_open[] = new int[64];
+
+    private long mines_left, interior;
+    private double interior_probability;
+    private long nodes, budget;
+    private long cached_interior = -1, cached_mines = -1;
+    private double log_binomial[] = new double[0];
+
+    /**
+     * Computes the mine probability of every unknown hidden space.
+     * 
+     * @param minefield The board being played.
+     * @param solver The solver following the game, which must be up to date.
+     * @param rng Random generator used to sample large components.
+     * @return  If there is any unknown hidden space.
+     */
+    public boolean Compute(Board minefield, Solver solver, SplittableRandom rng) {
+        this.board = minefield;
+        this.solver = solver;
+        this.rows = minefield.Display_Rows();
+        this.columns = minefield.Display_Columns();
+
+        if (var_of.length != rows * columns) {
+            var_of = new int[rows * columns];
+            Arrays.fill(var_of, -1);
+        } else {
+            for (int v = 0; v < vars; v++) var_of[var_cell[v]] = -1;
+        }
+
+        vars = 0;
+        groups = 0;
+        constraints = 0;
+        long unknown = Find_Constraints();
+        if (unknown == 0) return false;
+
+        mines_left = minefield.Display_Quant_Mines() - solver.Display_Marked_Mines();
+        interior = unknown - vars;
+
+        Find_Groups();
+        ArrayList<Component> components = Find_Components();
+
+        for (Component component : components) {
+            nodes = 0;
+            budget = NODE_BUDGET;
+
+            if (component.members.length > MAX_EXACT || Enumerate(component, 0, 0, 1) == false) {
+                component.Clear();
+                Sample(component, rng);
+            }
+
+            if (Arrays.stream(component.weights).sum() == 0) {
+                // No layout found: leave the component out and give its spaces the density.
+                component.unsolved = true;
+                component.weights[0] = 1;
+            }
+        }
+
+        Combine(components);
+        return true;
+    }
+
+    /**
+     * Collects every revealed number with unknown hidden neighbours as a constraint, and those
+     * neighbours as variables.
+     * 
+     * @return  The number of unknown hidden spaces on the board.
+     */
+    private long Find_Constraints() {
+        long unknown = 0;
+
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                int nearby = Solver.Number(board.Display_Space(x, y));
+
+                if (nearby < 0) {
+                    if (solver.Is_Unknown(x, y)) unknown++;
+                    continue;
+                }
+
+                if (nearby > 8) continue;
+
+                int last_x = Math.min(x + 1, rows - 1);
+                int last_y = Math.min(y + 1, columns - 1);
+                int size = 0;
+
+                if (constraints == constraint_size.length) Grow_Constraints();
+
+                for (int i = Math.max(x - 1, 0); i <= last_x; i++) {
+                    for (int j = Math.max(y - 1, 0); j <= last_y; j++) {
+                        if (solver.Is_Mine(i, j)) {
+                            nearby--;
+                        } else if (solver.Is_Unknown(i, j)) {
+                            constraint_vars[constraints * 8 + size++] = Variable(i * columns + j);
+                        }
+                    }
+                }
+
+                if (size == 0) continue;
+
+                for (int k = 0; k < size; k++) {
+                    int v = constraint_vars[constraints * 8 + k];
+                    var_constraints[v * 8 + var_constraint_count[v]++] = constraints;
+                }
+
+                constraint_size[constraints] = size;
+                constraint_need[constraints] = nearby;
+                constraints++;
+            }
+        }
+
+        return unknown;
+    }
+
+    /**
+     * Returns the variable of a frontier space, creating it if needed.
+     */
+    private int Variable(int cell) {
+        if (var_of[cell] >= 0) return var_of[cell];
+
+        if (vars == var_cell.length) {
+            int capacity = vars * 2;
+            var_cell = Arrays.copyOf(var_cell, capacity);
+            var_constraints = Arrays.copyOf(var_constraints, capacity * 8);
+            var_constraint_count = Arrays.copyOf(var_constraint_count, capacity);
+            var_group = Arrays.copyOf(var_group, capacity);
+            group_var = Arrays.copyOf(group_var, capacity);
+            group_size = Arrays.copyOf(group_size, capacity);
+            group_assigned = Arrays.copyOf(group_assigned, capacity);
+            group_probability = Arrays.copyOf(group_probability, capacity);
+        }
+
+        var_cell[vars] = cell;
+        var_constraint_count[vars] = 0;
+        var_group[vars] = -1;
+        var_of[cell] = vars;
+        return vars++;
+    }
+
+    /**
+     * Doubles the capacity of the constraint arrays.
+     */
+    private void Grow_Constraints() {
+        int capacity = constraints * 2;
+
+        constraint_vars = Arrays.copyOf(constraint_vars, capacity * 8);
+        constraint_size = Arrays.copyOf(constraint_size, capacity);
+        constraint_need = Arrays.copyOf(constraint_need, capacity);
+        constraint_mines = Arrays.copyOf(constraint_mines, capacity);
+        constraint_open = Arrays.copyOf(constraint_open, capacity);
+    }
+
+    /**
+     * Groups the variables next to exactly the same numbers. Such variables share their first
+     * constraint, so only the variables of each constraint have to be compared.
+     */
+    private void Find_Groups() {
+        for (int c = 0; c < constraints; c++) {
+            int size = constraint_size[c];
+
+            for (int a = 0; a < size; a++) {
+                int v = constraint_vars[c * 8 + a];
+                if (var_group[v] >= 0 || var_constraints[v * 8] != c) continue;
+
+                group_var[groups] = v;
+                group_size[groups] = 1;
+                group_assigned[groups] = 0;
+                var_group[v] = groups;
+
+                for (int b = a + 1; b < size; b++) {
+                    int w = constraint_vars[c * 8 + b];
+
+                    if (var_group[w] < 0 && Same_Constraints(v, w)) {
+                        var_group[w] = groups;
+                        group_size[groups]++;
+                    }
+                }
+
+                groups++;
+            }
+        }
+    }
+
+    /**
+     * Checks if two variables are next to exactly the same numbers.
+     */
+    private boolean Same_Constraints(int v, int w) {
+        if (var_constraint_count[v] != var_constraint_count[w]) return false;
+
+        for (int i = 0; i < var_constraint_count[v]; i++) {
+            if (var_constraints[v * 8 + i] != var_constraints[w * 8 + i]) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Splits the groups into components with a breadth-first search over the constraints. The
+     * members of each component are listed in the order they were reached, so neighbouring groups
+     * are assigned one after the other and the enumeration can prune early.
+     */
+    private ArrayList<Component> Find_Components() {
+        ArrayList<Component> components = new ArrayList<Component>();
+        boolean reached[] = new boolean[groups];
+        int order[] = new int[groups];
+
+        for (int c = 0; c < constraints; c++) {
+            constraint_mines[c] = 0;
+            constraint_open[c] = constraint_size[c];
+        }
+
+        for (int first = 0; first < groups; first++) {
+            if (reached[first]) continue;
+
+            int head = 0, tail = 0, capacity = 0;
+            order[tail++] = first;
+            reached[first] = true;
+
+            while (head < tail) {
+                int g = order[head++];
+                int v = group_var[g];
+                capacity += group_size[g];
+
+                for (int i = 0; i < var_constraint_count[v]; i++) {
+                    int c = var_constraints[v * 8 + i];
+
+                    for (int j = 0; j < constraint_size[c]; j++) {
+                        int other = var_group[constraint_vars[c * 8 + j]];
+                        if (reached[other]) continue;
+
+                        reached[other] = true;
+                        order[tail++] = other;
+                    }
+                }
+            }
+
+            components.add(new Component(Arrays.copyOf(order, tail), capacity));
+        }
+
+        return components;
+    }
+
+    /**
+     * Assigns a number of mines to a group, or takes them back, updating its constraints.
+     * 
+     * @param g The group.
+     * @param mines Mines placed in the group.
+     * @param undo If the assignment is being taken back.
+     * @return  If every constraint of the group can still be satisfied.
+     */
+    private boolean Assign(int g, int mines, boolean undo) {
+        boolean consistent = true;
+        int v = group_var[g];
+        int step = undo ? -1 : 1;
+
+        group_assigned[g] = undo ? 0 : mines;
+
+        for (int i = 0; i < var_constraint_count[v]; i++) {
+            int c = var_constraints[v * 8 + i];
+            constraint_open[c] -= step * group_size[g];
+            constraint_mines[c] += step * mines;
+
+            if (constraint_mines[c] > constraint_need[c] ||
+                constraint_mines[c] + constraint_open[c] < constraint_need[c]) {
+                consistent = false;
+            }
+        }
+
+        return consistent;
+    }
+
+    /**
+     * Enumerates every assignment of a component, from its i-th member on.
+     * 
+     * @param component The component.
+     * @param i Index of the next member to be assigned.
+     * @param mines Mines placed in the members already assigned.
+     * @param weight Number of layouts of the members already assigned.
+     * @return  False if the enumeration ran out of budget.
+     */
+    private boolean Enumerate(Component component, int i, int mines, double weight) {
+        if (++nodes > budget) return false;
+
+        if (i == component.members.length) {
+            component.Record(group_assigned, mines, weight);
+            return true;
+        }
+
+        int g = component.members[i];
+        int size = group_size[g];
+
+        for (int m = 0; m <= size && mines + m <= mines_left; m++) {
+            boolean complete = true;
+
+            if (Assign(g, m, false)) {
+                complete = Enumerate(component, i + 1, mines + m, weight * BINOMIAL[size][m]);
+            }
+
+            Assign(g, m, true);
+            if (complete == false) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Estimates the layouts of a component with SAMPLES randomized searches, each recording the
+     * first assignment it finds.
+     */
+    private void Sample(Component component, SplittableRandom rng) {
+        for (int s = 0; s < SAMPLES; s++) {
+            nodes = 0;
+            budget = SAMPLE_BUDGET + 4L * component.members.length;
+            Search(component, 0, 0, 1, rng);
+        }
+    }
+
+    /**
+     * Searches for one assignment of a component, trying the numbers of mines of each group in a
+     * random order.
+     * 
+     * @return  If an assignment was found and recorded.
+     */
+    private boolean Search(Component component, int i, int mines, double weight,
+                           SplittableRandom rng) {
+        if (++nodes > budget) return false;
+
+        if (i == component.members.length) {
+            component.Record(group_assigned, mines, weight);
+            return true;
+        }
+
+        int g = component.members[i];
+        int size = group_size[g];
+        int first = rng.nextInt(size + 1);
+
+        for (int k = 0; k <= size; k++) {
+            int m = (first + k) % (size + 1);
+            if (mines + m > mines_left) continue;
+
+            boolean found = false;
+
+            if (Assign(g, m, false)) {
+                found = Search(component, i + 1, mines + m, weight * BINOMIAL[size][m], rng);
+            }
+
+            Assign(g, m, true);
+            if (found) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns log C(interior, m) for m from 0 to the mines left, keeping the last row computed.
+     */
+    private double[] Log_Binomials() {
+        if (interior == cached_interior && mines_left == cached_mines) return log_binomial;
+
+        if (log_binomial.length < mines_left + 1) log_binomial = new double[(int) mines_left + 1];
+
+        log_binomial[0] = 0;
+        for (int m = 1; m <= mines_left; m++) {
+            log_binomial[m] = (m > interior) ? Double.NEGATIVE_INFINITY :
+                              log_binomial[m - 1] + Math.log(interior - m + 1) - Math.log(m);
+        }
+
+        cached_interior = interior;
+        cached_mines = mines_left;
+        return log_binomial;
+    }
+
+    /**
+     * Convolves two mine count distributions, dropping totals above the mines left, and scales
+     * the result so its largest entry is 1. The scale cancels out in every probability.
+     */
+    private double[] Convolve(double a[], double b[]) {
+        int length = (int) Math.min(a.length + b.length - 1, mines_left + 1);
+        double result[] = new double[length];
+        double max = 0;
+
+        for (int i = 0; i < a.length && i < length; i++) {
+            if (a[i] == 0) continue;
+
+            for (int j = 0; j < b.length && i + j < length; j++) {
+                result[i + j] += a[i] * b[j];
+            }
+        }
+
+        for (double value : result) max = Math.max(max, value);
+        if (max > 0) {
+            for (int i = 0; i < length; i++) result[i] /= max;
+        }
+
+        return result;
+    }
+
+    /**
+     * Combines the components into the probability of every variable and of the interior.
+     */
+    private void Combine(ArrayList<Component> components) {
+        int count = components.size();
+        double prefix[][] = new double[count + 1][];
+        double suffix[][] = new double[count + 1][];
+
+        prefix[0] = new double[] {1};
+        suffix[count] = new double[] {1};
+
+        for (int c = 0; c < count; c++) {
+            prefix[c + 1] = Convolve(prefix[c], components.get(c).weights);
+        }
+
+        for (int c = count - 1; c >= 0; c--) {
+            suffix[c] = Convolve(components.get(c).weights, suffix[c + 1]);
+        }
+
+        double binomial[] = Scaled_Binomials();
+        double density = (double) mines_left / (interior + vars);
+
+        for (int c = 0; c < count; c++) {
+            Component component = components.get(c);
+            int capacity = component.capacity;
+            double others[] = Convolve(prefix[c], suffix[c + 1]);
+            double rest[] = new double[capacity + 1];
+            double total = 0;
+
+            for (int k = 0; k <= capacity && k <= mines_left; k++) {
+                for (int j = 0; j < others.length && k + j <= mines_left; j++) {
+                    rest[k] += others[j] * binomial[(int) mines_left - k - j];
+                }
+
+                total += component.weights[k] * rest[k];
+            }
+
+            for (int i = 0; i < component.members.length; i++) {
+                int g = component.members[i];
+                double mines = 0;
+
+                for (int k = 0; k <= capacity; k++) {
+                    mines += component.mine_sums[i * (capacity + 1) + k] * rest[k];
+                }
+
+                group_probability[g] = (total > 0 && component.unsolved == false)
+                                       ? mines / total / group_size[g] : density;
+            }
+        }
+
+        double all[] = prefix[count];
+        double total = 0, mines = 0;
+
+        for (int t = 0; t < all.length; t++) {
+            double weight = all[t] * binomial[(int) mines_left - t];
+            total += weight;
+            if (interior > 0) mines += weight * (mines_left - t) / interior;
+        }
+
+        interior_probability = (total > 0) ? mines / total : density;
+    }
+
+    /**
+     * Returns C(interior, m) for m from 0 to the mines left, scaled so the largest is 1.
+     */
+    private double[] Scaled_Binomials() {
+        double logs[] = Log_Binomials();
+        double binomial[] = new double[(int) mines_left + 1];
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int m = 0; m <= mines_left; m++) max = Math.max(max, logs[m]);
+        for (int m = 0; m <= mines_left; m++) binomial[m] = Math.exp(logs[m] - max);
+
+        return binomial;
+    }
+
+    /**
+     * Returns the chance of a space having a mine, as of the last call of Compute.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  A probability from 0 to 1. Revealed spaces have 0 and deduced mines have 1.
+     */
+    public double Mine_Probability(int x, int y) {
+        if (solver.Is_Mine(x, y)) return 1;
+        if (solver.Is_Unknown(x, y) == false) return 0;
+
+        int v = var_of[x * columns + y];
+        return (v >= 0) ? group_probability[var_group[v]] : interior_probability;
+    }
+
+    /**
+     * Returns the unknown hidden space least likely to have a mine, as of the last call of
+     * Compute. Interior spaces all have the same chance, so one of them is picked at random.
+     * 
+     * @param rng Random generator used to pick an interior space.
+     * @return  The space, with the line in the upper 32 bits and the column in the lower 32 bits,
+     * or -1 if there is none.
+     */
+    public long Safest(SplittableRandom rng) {
+        int best = -1;
+
+        for (int g = 0; g < groups; g++) {
+            if (best == -1 || group_probability[g] < group_probability[best]) best = g;
+        }
+
+        if (interior > 0 && (best == -1 || interior_probability < group_probability[best])) {
+            long spaces = (long) rows * columns;
+            long start = rng.nextLong(spaces);
+
+            for (long i = 0; i < spaces; i++) {
+                int cell = (int) ((start + i) % spaces);
+                int x = cell / columns;
+                int y = cell % columns;
+
+                if (var_of[cell] < 0 && solver.Is_Unknown(x, y)) return ((long) x << 32) | y;
+            }
+        }
+
+        if (best == -1) return -1;
+
+        int cell = var_cell[group_var[best]];
+        return ((long) (cell / columns) << 32) | (cell % columns);
+    }
+}
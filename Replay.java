@@ -0,0 +1,659 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Replay class.
+ * An append-only log of finished games, each stored as what's needed to build its board again
+ * plus the moves, so any game can be played back exactly, e.g. when a loss or a score is disputed,
+ * and whole logs can be played back quickly to check that the Board still gives the same results.
+ * 
+ * The log starts with MAGIC. Each game follows as its length, as a varint, and then:
+ * 
+ * - A flags byte: SNAPSHOT if the mines were placed before the first move, VICTORY if it was won.
+ * - The rows, the columns and the mines as varints, the difficulty as a byte and the seed as 8
+ *   bytes. Boards set with a seed are built again from it, like Board.Set_Seed does.
+ * - The date of the first move, in epoch milliseconds, as a varint.
+ * - If SNAPSHOT, the mines as one bit per space, since boards made by NoGuessGenerator are moved
+ *   around after the seed is used: the board is built again with Board.Set_Layout.
+ * - The moves, until the end of the game: the change of line from the last move (zigzag) shifted
+ *   left by 2 bits, with the Action in the lowest 2 bits, and the change of column (zigzag), both
+ *   as varints. Most moves take 2 bytes.
+ * 
+ * Varints take 7 bits per byte, lowest bits first, with the highest bit set on every byte but the
+ * last. A zigzag turns a small signed number into a small unsigned one: 0, -1, 1, -2... become 0,
+ * 1, 2, 3...
+ * 
+ * A Board writes its games through a Recorder, given to Board.Set_Recorder. Finished games are
+ * gathered in a direct buffer and written when it's full or on Flush, so recording costs a few
+ * bytes of memory per move and no system call. Each write locks the log and goes at its end, so
+ * several processes can add games to the same log. Playback maps the log and decodes the games in
+ * place.
+ * 
+ * Usage: java Replay [log] plays back every game and checks that each ends as recorded.
+ *        java Replay [log] [game] [moves] shows a game move by move, or only the board after the
+ *        given number of moves.
+ */
+public class Replay {
+    static final Path DEFAULT_FILE = Paths.get("replays", "games.log");
+    private static final int MAGIC = 0x4D535250;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SNAPSHOT = 1;
+    private static final int VICTORY = 2;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * A growable array of bytes, with the encodings used by the log.
+     */
+    private static class Bytes {
+        byte data[] = new byte[64];
+        int length;
+
+        /**
+         * Adds a byte.
+         */
+        void Put(int b) {
+            if (length == data.length) data = Arrays.copyOf(data, length * 2);
+
+            data[length++] = (byte) b;
+        }
+
+        /**
+         * Adds an unsigned number as a varint.
+         */
+        void Put_Varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                Put((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+
+            Put((int) value);
+        }
+
+        /**
+         * Adds a number as 8 bytes, highest first.
+         */
+        void Put_Long(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) Put((int) (value >>> shift));
+        }
+    }
+
+    /**
+     * Records the games of one Board. Not thread-safe: each board needs its own recorder, but the
+     * recorders of a Replay can be used by different threads.
+     */
+    public static class Recorder {
+        private final Replay log;
+        private final Bytes header = new Bytes();
+        private final Bytes moves = new Bytes();
+        private boolean started, snapshot, skipped;
+        private int last_x, last_y;
+
+        private Recorder(Replay log) {
+            this.log = log;
+        }
+
+        /**
+         * Forgets the game being recorded, if it wasn't finished. Called by the Board whenever a
+         * new board is set.
+         */
+        void Begin() {
+            this.started = false;
+            this.skipped = false;
+        }
+
+        /**
+         * Leaves the current game out of the log, e.g. a game resumed from a Snapshot, whose
+         * first moves aren't known.
+         */
+        void Skip() {
+            this.skipped = true;
+        }
+
+        /**
+         * Records a move, before it's applied to the board. The first move of a game also records
+         * the board.
+         * 
+         * @param minefield The board.
+         * @param action The action.
+         * @param x Line coordinates of the space.
+         * @param y Column coordinates of the space.
+         */
+        void Record(Board minefield, Action action, int x, int y) {
+            if (skipped) return ;
+            if (started == false) Start(minefield);
+
+            moves.Put_Varint((Zigzag(x - last_x) << 2) | action.ordinal());
+            moves.Put_Varint(Zigzag(y - last_y));
+            this.last_x = x;
+            this.last_y = y;
+        }
+
+        /**
+         * Records the board at the first move of a game.
+         */
+        private void Start(Board minefield) {
+            long mines[] = minefield.Display_Layout();
+            int spaces = minefield.Display_Rows() * minefield.Display_Columns();
+
+            header.length = 0;
+            moves.length = 0;
+            header.Put_Varint(minefield.Display_Rows());
+            header.Put_Varint(minefield.Display_Columns());
+            header.Put_Varint(minefield.Display_Quant_Mines());
+            header.Put(minefield.Display_Difficulty());
+            header.Put_Long(minefield.Display_Seed());
+            header.Put_Varint(System.currentTimeMillis());
+
+            if (mines != null) {
+                for (int i = 0; i < spaces; i += 8) header.Put((int) (mines[i >>> 6] >>> (i & 63)));
+            }
+
+            this.snapshot = (mines != null);
+            this.started = true;
+            this.last_x = 0;
+            this.last_y = 0;
+        }
+
+        /**
+         * Writes the game to the log, once it's won or lost.
+         * 
+         * @param victory If the game was won.
+         */
+        void End(boolean victory) {
+            if (started == false) return ;
+
+            int flags = (snapshot ? SNAPSHOT : 0) | (victory ? VICTORY : 0);
+            log.Append(flags, header, moves);
+            this.started = false;
+        }
+    }
+
+    /**
+     * Plays back one game of a log.
+     */
+    public static class Playback {
+        private final ByteBuffer game;
+        private final int flags;
+        private final int rows, columns, difficulty;
+        private final long quant_mines, seed, time;
+        private final long mines[];
+        private final int moves_start;
+        private int x, y;
+        private Action action;
+        private long moves;
+
+        /**
+         * Reads the board of a game.
+         * 
+         * @param game The game, as returned by Next_Game.
+         * @throws IOException If the game is corrupt.
+         */
+        public Playback(ByteBuffer game) throws IOException {
+            this.game = game;
+
+            try {
+                this.flags = game.get();
+                this.rows = (int) Get_Varint(game);
+                this.columns = (int) Get_Varint(game);
+                this.quant_mines = Get_Varint(game);
+                this.difficulty = game.get();
+                this.seed = game.getLong();
+                this.time = Get_Varint(game);
+
+                if ((flags & SNAPSHOT) != 0) {
+                    int spaces = rows * columns;
+                    this.mines = new long[(spaces + 63) / 64];
+
+                    for (int i = 0; i < spaces; i += 8) {
+                        mines[i >>> 6] |= (game.get() & 0xFFL) << (i & 63);
+                    }
+                } else {
+                    this.mines = null;
+                }
+            } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                throw new IOException("Corrupt game in the replay log", e);
+            }
+
+            this.moves_start = game.position();
+        }
+
+        /**
+         * Sets the board of the game, with no moves played.
+         * 
+         * @param minefield The board.
+         * @return  If the board could be set as recorded.
+         */
+        public boolean Setup(Board minefield) {
+            boolean set;
+
+            game.position(moves_start);
+            this.x = this.y = 0;
+            this.moves = 0;
+
+            if (mines != null) {
+                set = minefield.Set_Layout(rows, columns, difficulty, seed, mines);
+            } else if (difficulty != 0) {
+                minefield.Set_Seed(seed);
+                set = minefield.Set_Difficulty(difficulty);
+            } else {
+                minefield.Set_Seed(seed);
+                set = minefield.Set_Custom_Board(rows, columns, quant_mines);
+            }
+
+            return set && minefield.Display_Rows() == rows &&
+                   minefield.Display_Columns() == columns &&
+                   minefield.Display_Quant_Mines() == quant_mines &&
+                   minefield.Display_Seed() == seed;
+        }
+
+        /**
+         * Returns if the game has moves left to be played.
+         */
+        public boolean Has_Next() {
+            return game.hasRemaining();
+        }
+
+        /**
+         * Plays the next move of the game.
+         * 
+         * @param minefield The board, set with Setup.
+         * @return  The outcome of the move.
+         * @throws IOException If the move is corrupt.
+         */
+        public MoveResult Next(Board minefield) throws IOException {
+            try {
+                long first = Get_Varint(game);
+
+                this.action = Action.values()[(int) (first & 3)];
+                this.x += (int) Unzigzag(first >>> 2);
+                this.y += (int) Unzigzag(Get_Varint(game));
+            } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException("Corrupt move in the replay log", e);
+            }
+
+            this.moves++;
+            return minefield.Apply(action, x, y);
+        }
+
+        /**
+         * Plays the rest of the game, or until a number of moves were played.
+         * 
+         * @param minefield The board, set with Setup.
+         * @param until Number of moves played when it stops.
+         * @return  The outcome of the last move played, or null if none was.
+         * @throws IOException If a move is corrupt.
+         */
+        public MoveResult Fast_Forward(Board minefield, long until) throws IOException {
+            MoveResult result = null;
+
+            while (moves < until && Has_Next()) result = Next(minefield);
+
+            return result;
+        }
+
+        /**
+         * Returns if the game was won.
+         */
+        public boolean Victory() {
+            return (flags & VICTORY) != 0;
+        }
+
+        /**
+         * Returns the date of the game's first move, in epoch milliseconds.
+         */
+        public long Display_Time() {
+            return this.time;
+        }
+
+        /**
+         * Returns the number of moves played so far.
+         */
+        public long Display_Moves() {
+            return this.moves;
+        }
+
+        /**
+         * Returns the action of the last move played.
+         */
+        public Action Display_Action() {
+            return this.action;
+        }
+
+        /**
+         * Returns the line of the last move played.
+         */
+        public int Display_X() {
+            return this.x;
+        }
+
+        /**
+         * Returns the column of the last move played.
+         */
+        public int Display_Y() {
+            return this.y;
+        }
+    }
+
+    /**
+     * Opens a log to add games to, creating it if it doesn't exist.
+     * 
+     * @param file The log.
+     * @throws IOException If the log can't be created or written, or isn't a replay log.
+     */
+    public Replay(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+
+        FileLock lock = channel.lock();
+
+        try {
+            if (channel.size() == 0) {
+                ByteBuffer magic = ByteBuffer.allocate(4).putInt(0, MAGIC);
+                channel.write(magic, 0);
+            } else {
+                ByteBuffer magic = ByteBuffer.allocate(4);
+                channel.read(magic, 0);
+
+                if (magic.getInt(0) != MAGIC) {
+                    channel.close();
+                    throw new IOException(file + " isn't a replay log");
+                }
+            }
+        } finally {
+            if (lock.isValid()) lock.release();
+        }
+    }
+
+    /**
+     * Returns a new recorder for a Board, to be given to Board.Set_Recorder.
+     */
+    public Recorder New_Recorder() {
+        return new Recorder(this);
+    }
+
+    /**
+     * Adds a finished game to the buffer, writing the buffer first if the game doesn't fit.
+     */
+    private synchronized void Append(int flags, Bytes header, Bytes moves) {
+        Bytes length = new Bytes();
+        length.Put_Varint(1 + header.length + moves.length);
+
+        int size = length.length + 1 + header.length + moves.length;
+
+        try {
+            if (size > buffer.remaining()) Write_Buffer();
+
+            if (size > buffer.capacity()) {
+                ByteBuffer game = ByteBuffer.allocate(size);
+                game.put(length.data, 0, length.length).put((byte) flags);
+                game.put(header.data, 0, header.length).put(moves.data, 0, moves.length);
+                game.flip();
+                Write(game);
+                return ;
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The replay log can't be written!");
+            return ;
+        }
+
+        buffer.put(length.data, 0, length.length).put((byte) flags);
+        buffer.put(header.data, 0, header.length).put(moves.data, 0, moves.length);
+    }
+
+    /**
+     * Writes the buffered games to the log.
+     */
+    private void Write_Buffer() throws IOException {
+        buffer.flip();
+        Write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Writes whole games at the end of the log, holding a lock on it so the games of other
+     * processes go before or after them, never over them.
+     */
+    private void Write(ByteBuffer games) throws IOException {
+        if (games.hasRemaining() == false) return ;
+
+        FileLock lock = channel.lock();
+
+        try {
+            long end = channel.size();
+
+            while (games.hasRemaining()) end += channel.write(games, end);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Writes the finished games to the log.
+     */
+    public synchronized void Flush() {
+        try {
+            Write_Buffer();
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The replay log can't be written!");
+        }
+    }
+
+    /**
+     * Writes the finished games and closes the log.
+     */
+    public synchronized void Close() {
+        Flush();
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The replay log can't be written!");
+        }
+    }
+
+    /**
+     * Maps a log for playback.
+     * 
+     * @param file The log.
+     * @return  The log, positioned at its first game.
+     * @throws IOException If the log can't be read or isn't a replay log.
+     */
+    public static ByteBuffer Open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer log = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (log.remaining() < 4 || log.getInt() != MAGIC) {
+                throw new IOException(file + " isn't a replay log");
+            }
+
+            return log;
+        }
+    }
+
+    /**
+     * Returns the next game of a log and moves past it.
+     * 
+     * @param log The log, as returned by Open.
+     * @return  The game, to be given to a Playback, or null at the end of the log.
+     * @throws IOException If the log is corrupt.
+     */
+    public static ByteBuffer Next_Game(ByteBuffer log) throws IOException {
+        if (log.hasRemaining() == false) return null;
+
+        try {
+            long length = Get_Varint(log);
+
+            if (length < 1 || length > log.remaining()) {
+                throw new IOException("Corrupt game length in the replay log");
+            }
+
+            ByteBuffer game = log.slice(log.position(), (int) length);
+            log.position(log.position() + (int) length);
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt game length in the replay log", e);
+        }
+    }
+
+    /**
+     * Reads a varint.
+     */
+    private static long Get_Varint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+
+        throw new IOException("Corrupt varint in the replay log");
+    }
+
+    /**
+     * Turns a signed number into an unsigned one, small in absolute value into small.
+     */
+    private static long Zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverses Zigzag.
+     */
+    private static long Unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Plays back every game of a log and checks that each one ends as it was recorded.
+     * 
+     * @param log The log, as returned by Open.
+     * @return  The number of games that didn't.
+     * @throws IOException If the log is corrupt.
+     */
+    public static long Audit(ByteBuffer log) throws IOException {
+        Board minefield = new Board();
+        long games = 0, moves = 0, mismatches = 0;
+        long start = System.nanoTime();
+        ByteBuffer game;
+
+        while ((game = Next_Game(log)) != null) {
+            Playback playback = new Playback(game);
+            MoveResult result = null;
+
+            if (playback.Setup(minefield)) {
+                result = playback.Fast_Forward(minefield, Long.MAX_VALUE);
+            }
+
+            MoveResult expected = playback.Victory() ? MoveResult.VICTORY : MoveResult.DEFEAT;
+
+            if (result != expected) {
+                System.out.println("Game " + games + " ended with " + result + " instead of " +
+                                   expected + ".");
+                mismatches++;
+            }
+
+            moves += playback.Display_Moves();
+            games++;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d moves played back in %.3f s (%.0f games/s). " +
+                          "%d didn't end as recorded.%n", games, moves, seconds, games / seconds,
+                          mismatches);
+        return mismatches;
+    }
+
+    /**
+     * Shows a game of a log, move by move, or only the board after a number of moves.
+     * 
+     * @param log The log, as returned by Open.
+     * @param number Index of the game in the log, from 0.
+     * @param until Number of moves to play before the board is shown, or -1 to show every move.
+     * @throws IOException If the log is corrupt.
+     */
+    public static void Show(ByteBuffer log, long number, long until) throws IOException {
+        ByteBuffer game = null;
+
+        for (long i = 0; i <= number; i++) {
+            game = Next_Game(log);
+
+            if (game == null) {
+                System.out.println("The log only has " + i + " games.");
+                return ;
+            }
+        }
+
+        Board minefield = new Board();
+        Playback playback = new Playback(game);
+
+        if (playback.Setup(minefield) == false) {
+            System.out.println("The board of game " + number + " couldn't be built again.");
+            return ;
+        }
+
+        System.out.println("Game " + number + ", played on " +
+                           new Date(playback.Display_Time()) + ", " +
+                           (playback.Victory() ? "won." : "lost."));
+
+        if (until >= 0) {
+            playback.Fast_Forward(minefield, until);
+            System.out.println("After " + playback.Display_Moves() + " moves:");
+            minefield.Print_Board();
+            return ;
+        }
+
+        while (playback.Has_Next()) {
+            MoveResult result = playback.Next(minefield);
+
+            System.out.println('\n' + "Move " + playback.Display_Moves() + ": " +
+                               playback.Display_Action() + " at Row [" + playback.Display_X() +
+                               "], Column [" + playback.Display_Y() + "]: " + result);
+            minefield.Print_Board();
+        }
+    }
+
+    /**
+     * MAIN FUNCTION!
+     */
+    public static void main(String[] args) {
+        Path file = (args.length > 0) ? Paths.get(args[0]) : DEFAULT_FILE;
+
+        try {
+            ByteBuffer log = Open(file);
+
+            if (args.length > 1) {
+                long until = (args.length > 2) ? Long.parseLong(args[2]) : -1;
+                Show(log, Long.parseLong(args[1]), until);
+            } else if (Audit(log) != 0) {
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 9: The replay log couldn't be read! " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
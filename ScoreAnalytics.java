@@ -0,0 +1,379 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ScoreAnalytics class.
+ * Reads the whole score log of a ScoreStore in one streaming pass and reports, per difficulty,
+ * the percentiles and a histogram of the scores, plus the best score of each player and the
+ * number of games per day.
+ * 
+ * The records have a fixed size, so the log is split by byte ranges and read on all cores with a
+ * ForkJoinPool; each range is summarized on its own and the summaries are added up. Scores go into
+ * a Histogram per difficulty, so percentiles are within 1% while each histogram keeps a fixed
+ * size however many games there are.
+ * 
+ * The summary is saved in "analytics.state" with the number of records it covers, so the next run
+ * only reads the records added since then.
+ * 
+ * Usage: java ScoreAnalytics [scores directory] [threads]
+ */
+public class ScoreAnalytics {
+    private static final int MAGIC = 0x4D534153;
+    private static final int LEAF_RECORDS = 1 << 16;
+    private static final int DIFFICULTIES = 7;
+
+    /**
+     * Totals of a range of records.
+     */
+    static class Summary {
+        final Histogram by_difficulty[] = new Histogram[DIFFICULTIES];
+        final Map<String, long[]> players = new HashMap<String, long[]>();
+        final TreeMap<Long, Long> days = new TreeMap<Long, Long>();
+        long records;
+
+        Summary() {
+            for (int d = 0; d < DIFFICULTIES; d++) by_difficulty[d] = new Histogram();
+        }
+
+        /**
+         * Adds a record: its score, its player's best score and number of games, and its day.
+         */
+        void Record(String name, long score, int difficulty, long time, ZoneId zone) {
+            by_difficulty[Math.min(Math.max(difficulty + 1, 0), DIFFICULTIES - 1)].Record(score);
+
+            long player[] = players.computeIfAbsent(name, key -> new long[] {-1, 0});
+            player[0] = Math.max(player[0], score);
+            player[1]++;
+
+            long day = Instant.ofEpochMilli(time).atZone(zone).toLocalDate().toEpochDay();
+            days.merge(day, 1L, Long::sum);
+            records++;
+        }
+
+        /**
+         * Adds the totals of another range of records to this one.
+         */
+        Summary Add(Summary other) {
+            for (int d = 0; d < DIFFICULTIES; d++) by_difficulty[d].Add(other.by_difficulty[d]);
+
+            for (Map.Entry<String, long[]> entry : other.players.entrySet()) {
+                long player[] = players.computeIfAbsent(entry.getKey(), key -> new long[] {-1, 0});
+                player[0] = Math.max(player[0], entry.getValue()[0]);
+                player[1] += entry.getValue()[1];
+            }
+
+            for (Map.Entry<Long, Long> entry : other.days.entrySet()) {
+                days.merge(entry.getKey(), entry.getValue(), Long::sum);
+            }
+
+            records += other.records;
+            return this;
+        }
+    }
+
+    /**
+     * Summarizes the records from first to last - 1, splitting the range in halves until it has
+     * at most LEAF_RECORDS records.
+     */
+    static class Records extends RecursiveTask<Summary> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient FileChannel log;
+        private final long first, last;
+        private final ZoneId zone;
+
+        Records(FileChannel log, long first, long last, ZoneId zone) {
+            this.log = log;
+            this.first = first;
+            this.last = last;
+            this.zone = zone;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (last - first > LEAF_RECORDS) {
+                long middle = (first + last) >>> 1;
+                Records left = new Records(log, first, middle, zone);
+                left.fork();
+                Summary right = new Records(log, middle, last, zone).compute();
+                return right.Add(left.join());
+            }
+
+            Summary summary = new Summary();
+            ByteBuffer buffer = ByteBuffer.allocate((int) (last - first) * ScoreStore.RECORD_SIZE);
+            byte name[] = new byte[ScoreStore.NAME_SIZE];
+
+            try {
+                long position = first * ScoreStore.RECORD_SIZE;
+                while (buffer.hasRemaining()) position += log.read(buffer, position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            buffer.flip();
+
+            for (long record = first; record < last; record++) {
+                long time = buffer.getLong();
+                long score = buffer.getLong();
+                buffer.getLong();
+                int difficulty = buffer.get();
+                int length = buffer.get();
+
+                buffer.get(name, 0, ScoreStore.NAME_SIZE);
+                String player = new String(name, 0, length, StandardCharsets.UTF_8);
+                summary.Record(player, score, difficulty, time, zone);
+            }
+
+            return summary;
+        }
+    }
+
+    /**
+     * Brings the summary of a store up to date, reading only the records added since the summary
+     * was saved, and saves it again.
+     * 
+     * @param pool Pool where the records are read.
+     * @param directory The store's directory.
+     * @return  The summary of every record.
+     * @throws IOException If the files can't be read or written.
+     */
+    public static Summary Update(ForkJoinPool pool, Path directory) throws IOException {
+        ScoreStore store = new ScoreStore(directory);
+        long records = store.Size();
+        store.Close();
+
+        Path state = directory.resolve("analytics.state");
+        Summary summary = Load(state);
+        if (summary == null || summary.records > records) summary = new Summary();
+
+        if (summary.records < records) {
+            try (FileChannel log = FileChannel.open(directory.resolve("scores.log"),
+                                                    StandardOpenOption.READ)) {
+                Records task = new Records(log, summary.records, records, ZoneId.systemDefault());
+                summary.Add(pool.invoke(task));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            Save(summary, state);
+        }
+
+        return summary;
+    }
+
+    /**
+     * Reads a saved summary.
+     * 
+     * @return  The summary, or null if there is none or it can't be read.
+     */
+    private static Summary Load(Path state) {
+        if (Files.exists(state) == false) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                                                      Files.newInputStream(state)))) {
+            if (in.readInt() != MAGIC) return null;
+
+            Summary summary = new Summary();
+            summary.records = in.readLong();
+
+            for (Histogram histogram : summary.by_difficulty) {
+                histogram.total = in.readLong();
+                histogram.max = in.readLong();
+
+                for (int buckets = in.readInt(); buckets > 0; buckets--) {
+                    histogram.counts[in.readInt()] = in.readLong();
+                }
+            }
+
+            for (int players = in.readInt(); players > 0; players--) {
+                summary.players.put(in.readUTF(), new long[] {in.readLong(), in.readLong()});
+            }
+
+            for (int days = in.readInt(); days > 0; days--) {
+                summary.days.put(in.readLong(), in.readLong());
+            }
+
+            return summary;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Saves a summary, writing a new file that replaces the old one.
+     */
+    private static void Save(Summary summary, Path state) throws IOException {
+        Path temporary = state.resolveSibling(state.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                                                         Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(summary.records);
+
+            for (Histogram histogram : summary.by_difficulty) {
+                int buckets = 0;
+                for (long count : histogram.counts) if (count != 0) buckets++;
+
+                out.writeLong(histogram.total);
+                out.writeLong(histogram.max);
+                out.writeInt(buckets);
+
+                for (int i = 0; i < histogram.counts.length; i++) {
+                    if (histogram.counts[i] == 0) continue;
+
+                    out.writeInt(i);
+                    out.writeLong(histogram.counts[i]);
+                }
+            }
+
+            out.writeInt(summary.players.size());
+
+            for (Map.Entry<String, long[]> entry : summary.players.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue()[0]);
+                out.writeLong(entry.getValue()[1]);
+            }
+
+            out.writeInt(summary.days.size());
+
+            for (Map.Entry<Long, Long> entry : summary.days.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+
+        Files.move(temporary, state, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Prints the report of a summary.
+     */
+    public static void Print(Summary summary) {
+        String names[] = {"Unknown", "Custom", "1", "2", "3", "4", "5"};
+        Histogram all = new Histogram();
+
+        System.out.println(summary.records + " games by " + summary.players.size() + " players." +
+                           '\n');
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n", "Difficulty", "Games", "p50",
+                          "p90", "p99", "p99.9", "Max");
+
+        for (int d = 0; d < DIFFICULTIES; d++) {
+            all.Add(summary.by_difficulty[d]);
+            Print_Percentiles(names[d], summary.by_difficulty[d]);
+        }
+
+        Print_Percentiles("All", all);
+
+        for (int d = 0; d < DIFFICULTIES; d++) {
+            Histogram histogram = summary.by_difficulty[d];
+            if (histogram.total == 0) continue;
+
+            System.out.println('\n' + "Scores of difficulty " + names[d] + ":");
+
+            // Bucket boundaries fall on powers of two, so each line adds up whole buckets.
+            for (int bit = -1; bit < 63; bit++) {
+                long low = (bit < 0) ? 0 : 1L << bit;
+                long high = (bit < 0) ? 1 : (bit == 62) ? Long.MAX_VALUE : 1L << (bit + 1);
+                long count = 0;
+
+                for (int i = Histogram.Index(low); i < Histogram.BUCKETS; i++) {
+                    if (Histogram.Lowest(i) >= high) break;
+                    count += histogram.counts[i];
+                }
+
+                if (count == 0) continue;
+
+                int bar = (int) Math.ceil(50.0 * count / histogram.total);
+                System.out.printf("  %20s %10d %s%n", low + " - " + (high - 1), count,
+                                  "#".repeat(bar));
+            }
+        }
+
+        List<Map.Entry<String, long[]>> players =
+            new ArrayList<Map.Entry<String, long[]>>(summary.players.entrySet());
+        players.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+
+        System.out.println('\n' + "Best score per player (top 20):");
+
+        for (int i = 0; i < Math.min(20, players.size()); i++) {
+            System.out.printf("  %-22s %12d in %d games%n", players.get(i).getKey(),
+                              players.get(i).getValue()[0], players.get(i).getValue()[1]);
+        }
+
+        System.out.println('\n' + "Games per day (last 30 days played, newest first):");
+        int shown = 0;
+
+        for (Map.Entry<Long, Long> entry : summary.days.descendingMap().entrySet()) {
+            if (shown++ == 30) break;
+
+            LocalDate day = LocalDate.ofEpochDay(entry.getKey());
+            System.out.printf("  %s %10d%n", day, entry.getValue());
+        }
+    }
+
+    /**
+     * Prints the percentiles of a histogram, if it has any value.
+     */
+    private static void Print_Percentiles(String name, Histogram histogram) {
+        if (histogram.total == 0) return ;
+
+        System.out.printf("%-10s %10d %10d %10d %10d %10d %10d%n", name, histogram.total,
+                          histogram.Value_At(0.5), histogram.Value_At(0.9),
+                          histogram.Value_At(0.99), histogram.Value_At(0.999), histogram.max);
+    }
+
+    /**
+     * MAIN FUNCTION!
+     */
+    public static void main(String[] args) {
+        Path directory = Paths.get((args.length > 0) ? args[0] : "scores");
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) :
+                                          Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        try {
+            long start = System.nanoTime();
+            Summary summary = Update(pool, directory);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Print(summary);
+            System.out.printf("%nUpdated in %.3f s on %d threads.%n", seconds, threads);
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 3: The scoreboard couldn't be read!");
+        }
+
+        pool.shutdown();
+    }
+}
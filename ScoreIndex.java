@@ -0,0 +1,418 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * ScoreIndex class.
+ * A sorted index file of fixed-size entries, each made of a few longs. Used by ScoreStore to find
+ * score records by score or by player without reading the score log.
+ * 
+ * The file has a header, a sorted run and a tail. New entries are appended to the tail, which is
+ * also kept sorted in memory, so lookups are a binary search in the run plus a binary search in
+ * the tail: O(log n) reads, no matter how many entries there are. When the tail reaches 1/32 of
+ * the run, both are merged into a new file, which replaces the old one with an atomic rename, so
+ * a crash leaves either the old or the new index. Each entry is copied about 32 times over its
+ * lifetime, however large the index grows.
+ * 
+ * Entries are compared key by key, each key ascending or descending.
+ */
+public class ScoreIndex {
+    private static final int MAGIC = 0x4D534958;
+    private static final int HEADER = 32;
+    private static final int MIN_TAIL = 4096;
+    private static final int TAIL_DIVISOR = 32;
+
+    private final Path path;
+    private final int keys;
+    private final boolean descending[];
+    private FileChannel channel;
+    private long sorted_count;
+    private long tail[] = new long[0];
+    private int tail_count;
+    private final ByteBuffer entry_buffer;
+    private final ByteBuffer header_buffer = ByteBuffer.allocate(HEADER);
+
+    /**
+     * Opens an index, creating it if it doesn't exist.
+     * 
+     * @param path The index file.
+     * @param descending For each key of an entry, if it's sorted from the largest to the smallest.
+     * @throws IOException If the file can't be read or written, or isn't an index with these keys.
+     */
+    public ScoreIndex(Path path, boolean... descending) throws IOException {
+        this.path = path;
+        this.keys = descending.length;
+        this.descending = descending.clone();
+        this.entry_buffer = ByteBuffer.allocate(8 * keys);
+        Open();
+    }
+
+    /**
+     * Opens the file and loads its header and tail.
+     */
+    private void Open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+
+        if (channel.size() == 0) {
+            sorted_count = 0;
+            tail_count = 0;
+            Write_Header();
+            return ;
+        }
+
+        header_buffer.clear();
+        channel.read(header_buffer, 0);
+        header_buffer.flip();
+
+        if (header_buffer.getInt() != MAGIC || header_buffer.getInt() != keys) {
+            throw new IOException(path + " is not a score index.");
+        }
+
+        sorted_count = header_buffer.getLong();
+        long entries = (channel.size() - HEADER) / (8 * keys);
+        Load_Tail(entries - sorted_count);
+    }
+
+    /**
+     * Writes the header: the magic number, the number of keys and the size of the sorted run.
+     */
+    private void Write_Header() throws IOException {
+        header_buffer.clear();
+        header_buffer.putInt(MAGIC).putInt(keys).putLong(sorted_count);
+        header_buffer.putLong(0).putLong(0);
+        header_buffer.flip();
+        channel.write(header_buffer, 0);
+    }
+
+    /**
+     * Reads the tail from the file and sorts it in memory.
+     * 
+     * @param count Number of entries in the tail.
+     */
+    private void Load_Tail(long count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) count * 8 * keys);
+        channel.read(buffer, HEADER + sorted_count * 8 * keys);
+        buffer.flip();
+
+        tail = new long[Math.max((int) count, MIN_TAIL) * keys];
+        tail_count = (int) count;
+        buffer.asLongBuffer().get(tail, 0, tail_count * keys);
+
+        long scratch[] = new long[tail_count * keys];
+        long key[] = new long[keys];
+
+        // Bottom-up merge sort, since the entries are runs of longs in a flat array.
+        for (int width = 1; width < tail_count; width *= 2) {
+            for (int low = 0; low < tail_count; low += 2 * width) {
+                int middle = Math.min(low + width, tail_count);
+                int high = Math.min(low + 2 * width, tail_count);
+                int i = low, j = middle, out = low;
+
+                while (i < middle || j < high) {
+                    boolean left = j >= high;
+
+                    if (left == false && i < middle) {
+                        System.arraycopy(tail, j * keys, key, 0, keys);
+                        left = Compare(tail, i * keys, key) <= 0;
+                    }
+
+                    System.arraycopy(tail, (left ? i++ : j++) * keys, scratch, out++ * keys, keys);
+                }
+            }
+
+            System.arraycopy(scratch, 0, tail, 0, tail_count * keys);
+        }
+    }
+
+    /**
+     * Catches up with changes made by other processes: reopens the file, since a merge may have
+     * replaced it, and loads the entries added to the tail, or the whole tail if the sorted run
+     * changed. Must be called with the store locked.
+     * 
+     * @throws IOException If the file can't be read.
+     */
+    public void Refresh() throws IOException {
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        header_buffer.clear();
+        channel.read(header_buffer, 0);
+        header_buffer.flip();
+
+        if (header_buffer.getInt() != MAGIC || header_buffer.getInt() != keys) {
+            throw new IOException(path + " is not a score index.");
+        }
+
+        long new_sorted = header_buffer.getLong();
+        long entries = (channel.size() - HEADER) / (8 * keys);
+
+        if (new_sorted != sorted_count || entries < Size()) {
+            sorted_count = new_sorted;
+            Load_Tail(entries - sorted_count);
+            return ;
+        }
+
+        long entry[] = new long[keys];
+
+        for (long i = Size(); i < entries; i++) {
+            Read_Sorted(i, entry);
+            Insert_Tail(entry);
+        }
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    public long Size() {
+        return sorted_count + tail_count;
+    }
+
+    /**
+     * Adds an entry, merging the tail into the sorted run if it got too large.
+     * 
+     * @param entry The entry's keys.
+     * @throws IOException If the file can't be written.
+     */
+    public void Add(long... entry) throws IOException {
+        entry_buffer.clear();
+        for (int k = 0; k < keys; k++) entry_buffer.putLong(entry[k]);
+        entry_buffer.flip();
+        channel.write(entry_buffer, HEADER + Size() * 8 * keys);
+
+        Insert_Tail(entry);
+        if (tail_count >= Math.max(MIN_TAIL, sorted_count / TAIL_DIVISOR)) Merge();
+    }
+
+    /**
+     * Inserts an entry into the in-memory tail, keeping it sorted.
+     */
+    private void Insert_Tail(long entry[]) {
+        if ((tail_count + 1) * keys > tail.length) {
+            tail = Arrays.copyOf(tail, Math.max(tail.length * 2, MIN_TAIL * keys));
+        }
+
+        int position = Tail_Before(entry, false);
+        System.arraycopy(tail, position * keys, tail, (position + 1) * keys,
+                         (tail_count - position) * keys);
+        System.arraycopy(entry, 0, tail, position * keys, keys);
+        tail_count++;
+    }
+
+    /**
+     * Compares an entry with a key, key by key, honouring the direction of each key.
+     * 
+     * @return  A negative number if the entry comes first, 0 if they're equal, or a positive
+     * number if the key comes first.
+     */
+    private int Compare(long entry[], int offset, long key[]) {
+        for (int k = 0; k < keys; k++) {
+            int order = Long.compare(entry[offset + k], key[k]);
+            if (order != 0) return descending[k] ? -order : order;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Returns the number of tail entries before a key, or before or equal to it.
+     */
+    private int Tail_Before(long key[], boolean inclusive) {
+        int low = 0, high = tail_count;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int order = Compare(tail, middle * keys, key);
+
+            if (order < 0 || (inclusive && order == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Reads an entry of the sorted run.
+     * 
+     * @param i Position of the entry.
+     * @param entry Array where the keys are stored.
+     */
+    private void Read_Sorted(long i, long entry[]) throws IOException {
+        entry_buffer.clear();
+        channel.read(entry_buffer, HEADER + i * 8 * keys);
+        entry_buffer.flip();
+
+        for (int k = 0; k < keys; k++) entry[k] = entry_buffer.getLong();
+    }
+
+    /**
+     * Returns the number of entries that come before a key, or before or equal to it.
+     * 
+     * @param key The keys to be compared, as many as an entry has.
+     * @param inclusive If entries equal to the key are counted.
+     * @return  The number of entries.
+     * @throws IOException If the file can't be read.
+     */
+    public long Count_Before(long key[], boolean inclusive) throws IOException {
+        long low = 0, high = sorted_count;
+        long entry[] = new long[keys];
+
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            Read_Sorted(middle, entry);
+            int order = Compare(entry, 0, key);
+
+            if (order < 0 || (inclusive && order == 0)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low + Tail_Before(key, inclusive);
+    }
+
+    /**
+     * Reads the entries in order, starting from the first one not before a key.
+     * 
+     * @param key Where to start, or null to start from the first entry.
+     * @param count Maximum number of entries to be read.
+     * @return  The entries, one after the other, keys times the number of entries read.
+     * @throws IOException If the file can't be read.
+     */
+    public long[] Read(long key[], int count) throws IOException {
+        long low = 0, high = sorted_count;
+        long entry[] = new long[keys];
+
+        while (key != null && low < high) {
+            long middle = (low + high) >>> 1;
+            Read_Sorted(middle, entry);
+
+            if (Compare(entry, 0, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        int t = (key == null) ? 0 : Tail_Before(key, false);
+        long result[] = new long[count * keys];
+        int found = 0;
+        boolean loaded = false;
+
+        while (found < count && (low < sorted_count || t < tail_count)) {
+            if (low < sorted_count && loaded == false) {
+                Read_Sorted(low, entry);
+                loaded = true;
+            }
+
+            if (t >= tail_count || (low < sorted_count && Compare(tail, t * keys, entry) > 0)) {
+                System.arraycopy(entry, 0, result, found * keys, keys);
+                low++;
+                loaded = false;
+            } else {
+                System.arraycopy(tail, t * keys, result, found * keys, keys);
+                t++;
+            }
+
+            found++;
+        }
+
+        return Arrays.copyOf(result, found * keys);
+    }
+
+    /**
+     * Merges the tail into the sorted run, writing a new file that replaces the old one.
+     */
+    private void Merge() throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int block = 8192;
+        ByteBuffer in = ByteBuffer.allocate(block * 8 * keys);
+        ByteBuffer out = ByteBuffer.allocate(block * 8 * keys);
+        long entry[] = new long[keys];
+        long read = 0, position = HEADER;
+        int t = 0;
+
+        try (FileChannel merged = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING,
+                                                   StandardOpenOption.WRITE)) {
+            merged.position(HEADER);
+            in.limit(0);
+
+            while (read < sorted_count || t < tail_count) {
+                if (read < sorted_count && in.remaining() == 0) {
+                    in.clear();
+                    in.limit((int) Math.min(in.capacity(), (sorted_count - read) * 8 * keys));
+                    channel.read(in, position);
+                    position += in.position();
+                    in.flip();
+                }
+
+                boolean from_run = false;
+
+                if (read < sorted_count) {
+                    in.mark();
+                    for (int k = 0; k < keys; k++) entry[k] = in.getLong();
+                    from_run = t >= tail_count || Compare(tail, t * keys, entry) > 0;
+                    if (from_run == false) in.reset();
+                }
+
+                if (from_run) {
+                    for (int k = 0; k < keys; k++) out.putLong(entry[k]);
+                    read++;
+                } else {
+                    for (int k = 0; k < keys; k++) out.putLong(tail[t * keys + k]);
+                    t++;
+                }
+
+                if (out.remaining() == 0) {
+                    out.flip();
+                    merged.write(out);
+                    out.clear();
+                }
+            }
+
+            out.flip();
+            merged.write(out);
+
+            sorted_count += tail_count;
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(keys).putLong(sorted_count).putLong(0).putLong(0);
+            header.flip();
+            merged.write(header, 0);
+            merged.force(true);
+        }
+
+        channel.close();
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        tail_count = 0;
+    }
+
+    /**
+     * Closes the file.
+     * 
+     * @throws IOException If the file can't be closed.
+     */
+    public void Close() throws IOException {
+        channel.close();
+    }
+}
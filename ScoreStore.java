@@ -0,0 +1,475 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * ScoreStore class.
+ * Keeps every recorded game in an append-only log of fixed-size records, "scores.log", and two
+ * ScoreIndex files over it: "by_score.idx", ordered from the largest score to the smallest, and
+ * "by_player.idx", ordered by a hash of the player's name and then by score. The top N scores, the
+ * rank of a score and the best score and number of games of a player are found with binary
+ * searches, so they stay fast with millions of recorded games.
+ * 
+ * A record is RECORD_SIZE bytes: the date (epoch milliseconds), the score, the game's duration in
+ * nanoseconds, the difficulty, and the player's name in UTF-8, cut to NAME_SIZE bytes. Records are
+ * numbered from 0 in the order they were added.
+ * 
+ * The log is written before the indexes. When the store is opened, a record cut short by a crash
+ * is dropped and the records missing from an index are added to it again.
+ * 
+ * Several threads and several processes can share a store. Scores are submitted to a lock-free
+ * queue, and whichever thread gets the store next writes everything queued so far as one batch,
+ * with a single force of the log, so many players finishing at once cost one fsync. Every batch
+ * and every read holds a lock on "store.lock", so other processes are kept out, and starts by
+ * catching up with what they wrote. There must be only one ScoreStore per directory in a process.
+ */
+// The FileLocks in try-with-resources are only held for their block, never referenced in it.
+@SuppressWarnings("try")
+public class ScoreStore {
+    static final int RECORD_SIZE = 48;
+    static final int NAME_SIZE = 22;
+
+    private final Path directory;
+    private final FileChannel log;
+    private final FileChannel lock_file;
+    private final ScoreIndex by_score;
+    private final ScoreIndex by_player;
+    private final ByteBuffer record_buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<Pending>();
+    private final Map<Integer, Leaderboard> leaderboards = new HashMap<Integer, Leaderboard>();
+    private long records;
+
+    /**
+     * One recorded game.
+     */
+    static class Record {
+        long number, time, score, duration;
+        int difficulty;
+        String name;
+
+        Record() {}
+
+        Record(String name, long score, int difficulty, long duration, long time) {
+            this.name = name;
+            this.score = score;
+            this.difficulty = difficulty;
+            this.duration = duration;
+            this.time = time;
+        }
+    }
+
+    /**
+     * A submitted record waiting to be written.
+     */
+    private static class Pending {
+        final Record record;
+        boolean done;
+        IOException error;
+
+        Pending(Record record) {
+            this.record = record;
+        }
+    }
+
+    /**
+     * Opens the store in a directory, creating it if it doesn't exist.
+     * 
+     * @param directory The directory of the store's files.
+     * @throws IOException If the files can't be read or written.
+     */
+    public ScoreStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        this.directory = directory;
+        this.lock_file = FileChannel.open(directory.resolve("store.lock"),
+                                          StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                          StandardOpenOption.WRITE);
+
+        try (FileLock lock = lock_file.lock()) {
+            this.log = FileChannel.open(directory.resolve("scores.log"), StandardOpenOption.CREATE,
+                                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.by_score = new ScoreIndex(directory.resolve("by_score.idx"), true, false);
+            this.by_player = new ScoreIndex(directory.resolve("by_player.idx"), false, true, false);
+            Recover();
+        }
+    }
+
+    /**
+     * Drops a record cut short by a crash and adds the records missing from the indexes. Must be
+     * called with the exclusive lock.
+     */
+    private void Recover() throws IOException {
+        this.records = log.size() / RECORD_SIZE;
+        log.truncate(records * RECORD_SIZE);
+
+        for (long number = by_score.Size(); number < records; number++) {
+            Record record = Read_Record(number);
+            by_score.Add(record.score, number);
+        }
+
+        for (long number = by_player.Size(); number < records; number++) {
+            Record record = Read_Record(number);
+            by_player.Add(Hash(record.name), record.score, number);
+        }
+    }
+
+    /**
+     * Locks the store against other processes and catches up with what they wrote.
+     * 
+     * @param shared If other readers may hold the lock at the same time.
+     * @return  The lock, to be released by the caller.
+     */
+    private FileLock Lock(boolean shared) throws IOException {
+        FileLock lock = lock_file.lock(0, Long.MAX_VALUE, shared);
+
+        try {
+            by_score.Refresh();
+            by_player.Refresh();
+
+            if (shared) {
+                this.records = Math.min(log.size() / RECORD_SIZE, by_score.Size());
+            } else {
+                Recover();
+            }
+        } catch (IOException e) {
+            lock.release();
+            throw e;
+        }
+
+        return lock;
+    }
+
+    /**
+     * Returns the number of recorded games.
+     * 
+     * @throws IOException If the files can't be read.
+     */
+    public synchronized long Size() throws IOException {
+        try (FileLock lock = Lock(true)) {
+            return this.records;
+        }
+    }
+
+    /**
+     * Cuts a name to at most NAME_SIZE bytes of UTF-8, without splitting a character.
+     */
+    private static byte[] Encode(String name) {
+        byte bytes[] = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= NAME_SIZE) return bytes;
+
+        int length = NAME_SIZE;
+        while ((bytes[length] & 0xC0) == 0x80) length--;
+
+        byte cut[] = new byte[length];
+        System.arraycopy(bytes, 0, cut, 0, length);
+        return cut;
+    }
+
+    /**
+     * Returns the 64-bit FNV-1a hash of a name as it's stored, the key of "by_player.idx".
+     */
+    private static long Hash(String name) {
+        long hash = 0xCBF29CE484222325L;
+
+        for (byte b : Encode(name)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Records a game and waits until it's on the disk. Safe to call from any thread.
+     * 
+     * @param name The player's name. Only its first NAME_SIZE bytes of UTF-8 are kept.
+     * @param score The game's score.
+     * @param difficulty Difficulty from 1 to 5, 0 for a custom board or -1 if unknown.
+     * @param duration The game's duration in nanoseconds.
+     * @param time The date of the game, in epoch milliseconds.
+     * @return  The number of the new record.
+     * @throws IOException If the files can't be written.
+     */
+    public long Submit(String name, long score, int difficulty, long duration, long time)
+        throws IOException {
+        Record record = new Record(name, score, difficulty, duration, time);
+        Submit_All(List.of(record));
+        return record.number;
+    }
+
+    /**
+     * Records several games and waits until they're on the disk. Safe to call from any thread.
+     * 
+     * @param games The games, whose numbers are set once they're written.
+     * @throws IOException If the files can't be written.
+     */
+    public void Submit_All(List<Record> games) throws IOException {
+        List<Pending> mine = new ArrayList<Pending>(games.size());
+
+        for (Record record : games) {
+            Pending pending = new Pending(record);
+            mine.add(pending);
+            queue.add(pending);
+        }
+
+        synchronized (this) {
+            // Whoever held the store before may have written these already, with its own batch.
+            for (Pending pending : mine) {
+                if (pending.done == false) {
+                    Write_Batch();
+                    break;
+                }
+            }
+        }
+
+        for (Pending pending : mine) {
+            if (pending.error != null) throw pending.error;
+        }
+    }
+
+    /**
+     * Writes every queued record with one write and one force of the log, then adds them to the
+     * indexes and the open leaderboards.
+     */
+    private void Write_Batch() {
+        List<Pending> batch = new ArrayList<Pending>();
+        for (Pending pending; (pending = queue.poll()) != null; ) batch.add(pending);
+
+        try (FileLock lock = Lock(false)) {
+            ByteBuffer buffer = ByteBuffer.allocate(batch.size() * RECORD_SIZE);
+
+            for (int i = 0; i < batch.size(); i++) {
+                Record record = batch.get(i).record;
+                byte bytes[] = Encode(record.name);
+
+                record.number = records + i;
+                buffer.position(i * RECORD_SIZE);
+                buffer.putLong(record.time).putLong(record.score).putLong(record.duration);
+                buffer.put((byte) record.difficulty).put((byte) bytes.length).put(bytes);
+            }
+
+            buffer.clear();
+            long position = records * RECORD_SIZE;
+            while (buffer.hasRemaining()) position += log.write(buffer, position);
+            log.force(false);
+            this.records += batch.size();
+
+            for (Pending pending : batch) {
+                by_score.Add(pending.record.score, pending.record.number);
+                by_player.Add(Hash(pending.record.name), pending.record.score,
+                              pending.record.number);
+            }
+
+            for (Leaderboard leaderboard : leaderboards.values()) {
+                leaderboard.Sync(this);
+            }
+        } catch (IOException e) {
+            for (Pending pending : batch) pending.error = e;
+        }
+
+        for (Pending pending : batch) pending.done = true;
+    }
+
+    /**
+     * Reads a record of the log.
+     * 
+     * @param number The record's number.
+     * @return  The record.
+     * @throws IOException If the log can't be read.
+     */
+    public synchronized Record Read(long number) throws IOException {
+        try (FileLock lock = Lock(true)) {
+            return Read_Record(number);
+        }
+    }
+
+    /**
+     * Reads a record of the log, without locking.
+     */
+    Record Read_Record(long number) throws IOException {
+        record_buffer.clear();
+        log.read(record_buffer, number * RECORD_SIZE);
+        record_buffer.flip();
+
+        Record record = new Record();
+        record.number = number;
+        record.time = record_buffer.getLong();
+        record.score = record_buffer.getLong();
+        record.duration = record_buffer.getLong();
+        record.difficulty = record_buffer.get();
+
+        byte bytes[] = new byte[record_buffer.get()];
+        record_buffer.get(bytes);
+        record.name = new String(bytes, StandardCharsets.UTF_8);
+        return record;
+    }
+
+    /**
+     * Returns the best scores, from the largest to the smallest. Equal scores are ordered from
+     * the oldest to the newest.
+     * 
+     * @param count Maximum number of scores.
+     * @return  The records of the scores.
+     * @throws IOException If the files can't be read.
+     */
+    public synchronized Record[] Top(int count) throws IOException {
+        try (FileLock lock = Lock(true)) {
+            return Top_Records(count);
+        }
+    }
+
+    /**
+     * Returns the best scores, as in Top, without locking.
+     */
+    Record[] Top_Records(int count) throws IOException {
+        long entries[] = by_score.Read(null, count);
+        Record top[] = new Record[entries.length / 2];
+
+        for (int i = 0; i < top.length; i++) {
+            top[i] = Read_Record(entries[2 * i + 1]);
+        }
+
+        return top;
+    }
+
+    /**
+     * Returns the number of records, without locking.
+     */
+    long Records() {
+        return this.records;
+    }
+
+    /**
+     * Returns the rank a score has, or would have, among the recorded scores.
+     * 
+     * @param score The score.
+     * @return  1 plus the number of larger scores.
+     * @throws IOException If the index can't be read.
+     */
+    public synchronized long Rank(long score) throws IOException {
+        try (FileLock lock = Lock(true)) {
+            return by_score.Count_Before(new long[] {score, 0}, false) + 1;
+        }
+    }
+
+    /**
+     * Returns the best score of a player.
+     * 
+     * @param name The player's name.
+     * @return  The record of the best score, or null if the player has no recorded games.
+     * @throws IOException If the files can't be read.
+     */
+    public synchronized Record Best(String name) throws IOException {
+        long hash = Hash(name);
+        String stored = new String(Encode(name), StandardCharsets.UTF_8);
+        long key[] = {hash, Long.MAX_VALUE, 0};
+
+        try (FileLock lock = Lock(true)) {
+            // Names with the same hash share a range; the first one with this name is the best.
+            while (true) {
+                long entries[] = by_player.Read(key, 16);
+
+                for (int i = 0; i < entries.length; i += 3) {
+                    if (entries[i] != hash) return null;
+
+                    Record record = Read_Record(entries[i + 2]);
+                    if (record.name.equals(stored)) return record;
+                }
+
+                if (entries.length < 16 * 3) return null;
+
+                key[1] = entries[entries.length - 2];
+                key[2] = entries[entries.length - 1] + 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of recorded games of a player. Another name with the same 64-bit hash
+     * would be counted too.
+     * 
+     * @param name The player's name.
+     * @return  The number of games.
+     * @throws IOException If the index can't be read.
+     */
+    public synchronized long Games(String name) throws IOException {
+        long hash = Hash(name);
+
+        try (FileLock lock = Lock(true)) {
+            long first = by_player.Count_Before(new long[] {hash, Long.MAX_VALUE, 0}, false);
+            long last = by_player.Count_Before(new long[] {hash, Long.MIN_VALUE, Long.MAX_VALUE},
+                                               true);
+            return last - first;
+        }
+    }
+
+    /**
+     * Opens the leaderboard of the K best scores, "top<K>.board", which is then kept up to date
+     * with every batch.
+     * 
+     * @param capacity K, the number of scores kept.
+     * @return  The leaderboard.
+     * @throws IOException If the leaderboard can't be read or written.
+     */
+    public synchronized Leaderboard Open_Leaderboard(int capacity) throws IOException {
+        Leaderboard leaderboard = leaderboards.get(capacity);
+        if (leaderboard != null) return leaderboard;
+
+        try (FileLock lock = Lock(false)) {
+            leaderboard = new Leaderboard(directory.resolve("top" + capacity + ".board"), capacity);
+            leaderboard.Sync(this);
+        }
+
+        leaderboards.put(capacity, leaderboard);
+        return leaderboard;
+    }
+
+    /**
+     * Lets a reader use a leaderboard while no process can change it, after catching it up with
+     * the store.
+     * 
+     * @param leaderboard A leaderboard opened by this store.
+     * @param reader What reads the leaderboard.
+     * @throws IOException If the leaderboard can't be brought up to date.
+     */
+    public synchronized void Read_Leaderboard(Leaderboard leaderboard,
+                                              java.util.function.Consumer<Leaderboard> reader)
+        throws IOException {
+        try (FileLock lock = Lock(false)) {
+            leaderboard.Sync(this);
+            reader.accept(leaderboard);
+        }
+    }
+
+    /**
+     * Closes the files.
+     * 
+     * @throws IOException If the files can't be closed.
+     */
+    public synchronized void Close() throws IOException {
+        for (Leaderboard leaderboard : leaderboards.values()) leaderboard.Close();
+
+        log.close();
+        by_score.Close();
+        by_player.Close();
+        lock_file.close();
+    }
+}
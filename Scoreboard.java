@@ -1,177 +1,212 @@
-/**
- * MINESWEEPER GAME
- * 
- * Author: Andre Kenji Sato
- * Version: Beta 1.0
- * 
- * (N) No rights reserved. 2022.
- */
-
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.InputMismatchException;
-import java.util.Locale;
-import java.util.Scanner;
-
-/**
- * Scoreboard class. 
- * Writes and reads the scoreboard.
- */
-public class Scoreboard {
-    private File file_all = new File("scores/scoreboard.csv");
-    private File file_top10 = new File("scores/top10.csv");
-    private int score = 0;
-    private String name;
-
-    /**
-     * Empty Constructor.
-     */
-    public Scoreboard() {}
-
-    /**
-     * Calculates the player's score. The score is 0 if the player lost the game.
-     * 
-     * @param minefield The board used in the game.
-     * @param time TimeKepping class.
-     * @param victory If the player won the game.
-     */
-    public void Calculate_Score(Board minefield, TimeKeeping time, boolean victory) {
-        if (victory == true) {
-            double mine_score = 100 * minefield.Display_Quant_Mines();
-            double time_score = 0;
-
-            switch (minefield.Display_Difficulty()) {
-                case 1:
-                case 2:
-                    time_score = mine_score - 2500 * time.Game_Duration();
-                    break;
-                case 3:
-                case 4:
-                    time_score = mine_score - 2300 * time.Game_Duration();
-                    break;
-                case 5:
-                    time_score = mine_score - 2100 * time.Game_Duration();
-                    break;
-                case 0:
-                    time_score = mine_score - 2100 * time.Game_Duration();
-                    break;
-            }
-
-            System.out.println("Mine Score: " + (int) mine_score);
-            System.out.println("Time Score: " + time_score);
-
-            if (time_score < 0) {
-                time_score = 0;
-            }
-
-            this.score = (int) (mine_score + time_score);
-        }
-
-        System.out.println("Your Score: " + score + '\n');
-    }
-
-    /**
-     * Writes a new score to the scoreboard. Skips if the score is 0.
-     * 
-     * @param name The player's name.
-     */
-    public void Write_Score(String name) {  
-        if (this.score == 0) return ;
-
-        try (FileWriter writer = new FileWriter(file_all, true)) {
-            this.name = name;
-            writer.write(this.name + "," + this.score + ",");
-        } catch (IOException e) {
-            System.err.println("ERROR CODE 2: Scoreboard.csv can't be written!");
-            return ;
-        }
-
-        Update_Top10();
-    }
-
-    /**
-     * Rewrites the "top10.csv" when the new score is one of the 10 largest.
-     * 
-     * @param top_players The new top10 players, ordered from the 1st to the 10th.
-     * @param top_scores The new top10 scores, ordered from the 1st to the 10th.
-     */
-    public void Write_Top10(String[] top_players, int[] top_scores) {
-        try (FileWriter writer = new FileWriter(file_top10, false)) {
-            for (int i = 0; i < top_players.length; i++) {
-                writer.write(top_players[i] + "," + top_scores[i] + "," + "\n");
-            }   
-        } catch (IOException e) {
-            System.err.println("ERROR CODE 2: Top10.csv can't be written!");
-            return ;
-        }
-    }
-
-    /**
-     * Checks if the new score is one of the 10 largest, and updates "top10.csv" if that's the 
-     * case.
-     */
-    public void Update_Top10() {
-        String[] top_players = new String[10];
-        int[] top_scores = new int[10];
-        boolean top10_changed = false;
-
-        try (Scanner scanner = new Scanner(file_top10)) {
-            scanner.useLocale(Locale.ITALY);
-            scanner.useDelimiter(",");
-
-            for (int i = 0; i < 10; i++) {
-                top_players[i] = scanner.next();
-                top_scores[i] = scanner.nextInt();
-
-                if (top_scores[i] < this.score) {
-                    String s = top_players[i];
-                    top_players[i] = this.name;
-                    this.name = s;
-                    int x = top_scores[i];
-                    top_scores[i] = this.score;
-                    this.score = x;
-                    top10_changed = true;
-                }
-                scanner.nextLine();
-            }
-        } catch (FileNotFoundException e) {
-            System.err.println("ERROR CODE 3: top10.csv couldn't be found!");
-            System.err.println("Cannot update top10.csv score!");
-            return ;
-        } catch (InputMismatchException e) {
-            System.err.println("ERROR CODE 4: Non-Integer score found in top10.csv!");
-            System.err.println("Cannot update top10.csv score!");
-            return ;
-        }
-
-        if (top10_changed) Write_Top10(top_players, top_scores);
-    }
-
-    /**
-     * Prints the 10 top scores, stored in "top10.csv".
-     */
-    public void Display_Top10() {
-        try (Scanner scanner = new Scanner(file_top10)) {
-            scanner.useLocale(Locale.ITALY);
-            scanner.useDelimiter(",");
-
-            System.out.println('\n' + "Top 10 scores!" + '\n');
-
-            for (int line = 0; line < 10; line++) {
-                System.out.print("Player: " + scanner.next());
-                System.out.println("; Score: " + scanner.nextInt());
-                scanner.nextLine();
-            }
-        } catch (FileNotFoundException e) {
-            System.err.println("ERROR CODE 3: Scoreboard.csv couldn't be found!");
-            System.err.println("Cannot show the scoreboard!");
-            return ;
-        } catch (InputMismatchException e) {
-            System.err.println("ERROR CODE 4: Non-Integer score found in Scoreboard.csv!");
-            System.err.println("Cannot show the scoreboard!");
-            return ;
-        }
-    }
-}
\ No newline at end of file
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scoreboard class. 
+ * Writes and reads the scoreboard, kept in a ScoreStore in the "scores" directory. The best scores
+ * are also kept in a Leaderboard, "top<K>.board", which is what the top scores are read from.
+ * Scores from the old "scoreboard.csv" are imported the first time the store is opened.
+ */
+public class Scoreboard {
+    private static final Path DIRECTORY = Paths.get("scores");
+
+    private static ScoreStore store;
+
+    private final int top;
+    private final PrintStream out;
+    private Leaderboard leaderboard;
+    private long score = 0;
+    private int difficulty = -1;
+    private long duration = 0;
+    private String name;
+
+    /**
+     * Empty Constructor. Keeps the top 10 scores in the leaderboard.
+     */
+    public Scoreboard() {
+        this(10);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param top Number of best scores kept in the leaderboard, e.g. 10, 100 or 10000.
+     */
+    public Scoreboard(int top) {
+        this(top, System.out);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param top Number of best scores kept in the leaderboard, e.g. 10, 100 or 10000.
+     * @param out Where the scores are printed, e.g. to a player connected to the Server.
+     */
+    public Scoreboard(int top, PrintStream out) {
+        this.top = top;
+        this.out = out;
+    }
+
+    /**
+     * Opens the store, shared by every Scoreboard of the process, if it isn't open yet, importing
+     * the old "scoreboard.csv" into a new store.
+     * 
+     * @return  The store.
+     * @throws IOException If the store can't be opened.
+     */
+    private static synchronized ScoreStore Open_Store() throws IOException {
+        if (store != null) return store;
+
+        ScoreStore opened = new ScoreStore(DIRECTORY);
+        Path old_scoreboard = DIRECTORY.resolve("scoreboard.csv");
+
+        if (opened.Size() == 0 && Files.exists(old_scoreboard)) {
+            List<String> lines = Files.readAllLines(old_scoreboard);
+            String fields[] = String.join("", lines).split(",");
+            List<ScoreStore.Record> old_scores = new ArrayList<ScoreStore.Record>();
+
+            for (int i = 0; i + 1 < fields.length; i += 2) {
+                long old_score = Long.parseLong(fields[i + 1].trim());
+                if (old_score <= 0) continue;
+
+                old_scores.add(new ScoreStore.Record(fields[i].trim(), old_score, -1, 0, 0));
+            }
+
+            if (old_scores.isEmpty() == false) opened.Submit_All(old_scores);
+        }
+
+        store = opened;
+        return opened;
+    }
+
+    /**
+     * Opens this scoreboard's leaderboard if it isn't open yet.
+     * 
+     * @return  The leaderboard.
+     * @throws IOException If the store or the leaderboard can't be opened.
+     */
+    private Leaderboard Open_Leaderboard() throws IOException {
+        if (this.leaderboard == null) this.leaderboard = Open_Store().Open_Leaderboard(top);
+
+        return this.leaderboard;
+    }
+
+    /**
+     * Calculates the player's score. The score is 0 if the player lost the game.
+     * 
+     * @param minefield The board used in the game.
+     * @param time TimeKepping class.
+     * @param victory If the player won the game.
+     */
+    public void Calculate_Score(Board minefield, TimeKeeping time, boolean victory) {
+        if (victory == true) {
+            double mine_score = 100 * minefield.Display_Quant_Mines();
+            double time_score = 0;
+
+            switch (minefield.Display_Difficulty()) {
+                case 1:
+                case 2:
+                    time_score = mine_score - 2500 * time.Game_Duration();
+                    break;
+                case 3:
+                case 4:
+                    time_score = mine_score - 2300 * time.Game_Duration();
+                    break;
+                case 5:
+                    time_score = mine_score - 2100 * time.Game_Duration();
+                    break;
+                case 0:
+                    time_score = mine_score - 2100 * time.Game_Duration();
+                    break;
+            }
+
+            out.println("Mine Score: " + (int) mine_score);
+            out.println("Time Score: " + time_score);
+
+            if (time_score < 0) {
+                time_score = 0;
+            }
+
+            this.score = (long) (mine_score + time_score);
+            this.difficulty = minefield.Display_Difficulty();
+            this.duration = time.Game_Duration_Nanos();
+        }
+
+        out.println("Your Score: " + score + '\n');
+    }
+
+    /**
+     * Writes a new score to the scoreboard and prints its rank. Skips if the score is 0.
+     * 
+     * @param name The player's name.
+     */
+    public void Write_Score(String name) {  
+        if (this.score == 0) return ;
+
+        try {
+            this.name = name;
+            ScoreStore scores = Open_Store();
+            Open_Leaderboard();
+            scores.Submit(this.name, this.score, this.difficulty, this.duration,
+                          System.currentTimeMillis());
+
+            out.println("Your rank: " + scores.Rank(this.score) + " of " + scores.Size() +
+                        " scores.");
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The scoreboard can't be written!");
+            return ;
+        } catch (NumberFormatException e) {
+            System.err.println("ERROR CODE 4: Non-Integer score found in scoreboard.csv!");
+            return ;
+        }
+    }
+
+    /**
+     * Prints the 10 top scores.
+     */
+    public void Display_Top10() {
+        Display_Top(10);
+    }
+
+    /**
+     * Prints the top scores, read straight from the leaderboard.
+     * 
+     * @param shown Number of scores shown, at most the leaderboard's K.
+     */
+    public void Display_Top(int shown) {
+        try {
+            Open_Store().Read_Leaderboard(Open_Leaderboard(), board -> {
+                int count = Math.min(shown, board.Size());
+
+                out.println('\n' + "Top " + shown + " scores!" + '\n');
+
+                for (int slot = 0; slot < count; slot++) {
+                    out.print("Player: " + board.Display_Name(slot));
+                    out.println("; Score: " + board.Display_Score(slot));
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 3: The scoreboard couldn't be read!");
+            System.err.println("Cannot show the scoreboard!");
+            return ;
+        } catch (NumberFormatException e) {
+            System.err.println("ERROR CODE 4: Non-Integer score found in scoreboard.csv!");
+            System.err.println("Cannot show the scoreboard!");
+            return ;
+        }
+    }
+}
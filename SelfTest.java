@@ -0,0 +1,232 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * SelfTest class.
+ * Plays a few boards to the end through Board.Apply and checks that Victory agrees with the
+ * board: never before every space without a mine is revealed and every mine is flagged, and
+ * always once they are. The boards cover the moves that change the counters behind Victory out
+ * of the usual order, like flags put before the first move, where mines can then be placed, and
+ * games saved and resumed with flags on spaces without mines.
+ * 
+ * Usage: java SelfTest
+ * Prints one line per check and exits with status 1 if any of them failed.
+ */
+public class SelfTest {
+    private static int passed, failed;
+
+    /**
+     * Prints the outcome of a check.
+     * 
+     * @param name What was checked.
+     * @param ok If the check passed.
+     */
+    private static void Check(String name, boolean ok) {
+        System.out.println((ok ? "PASSED " : "FAILED ") + name);
+
+        if (ok) {
+            passed++;
+        } else {
+            failed++;
+        }
+    }
+
+    /**
+     * Checks if every space without a mine is revealed and every mine is flagged, by looking at
+     * each space.
+     */
+    private static boolean Won(Board minefield) {
+        for (int x = 0; x < minefield.Display_Rows(); x++) {
+            for (int y = 0; y < minefield.Display_Columns(); y++) {
+                char space = minefield.Display_Space(x, y);
+                boolean mine = minefield.Display_Answer(x, y) == 'X';
+
+                if (mine && space != 'F') return false;
+                if (mine == false && (space == '?' || space == 'F')) return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Plays the rest of a game without mistakes: flags every mine, removes the flags from spaces
+     * without one and clears every hidden space without a mine.
+     * 
+     * @param minefield The board, with its mines placed.
+     * @return  If Victory was only reported once the game was really won, and was reported then.
+     */
+    private static boolean Finish(Board minefield) {
+        for (int x = 0; x < minefield.Display_Rows(); x++) {
+            for (int y = 0; y < minefield.Display_Columns(); y++) {
+                char space = minefield.Display_Space(x, y);
+                boolean mine = minefield.Display_Answer(x, y) == 'X';
+                MoveResult result = MoveResult.CLEARED;
+
+                if (mine && space == '?') result = minefield.Apply(Action.FLAG, x, y);
+                if (mine == false && space == 'F') {
+                    result = minefield.Apply(Action.REMOVE_FLAG, x, y);
+                }
+
+                if (result == MoveResult.VICTORY && Won(minefield) == false) return false;
+
+                if (mine == false && minefield.Display_Space(x, y) == '?') {
+                    result = minefield.Apply(Action.CLEAR, x, y);
+                }
+
+                if (result == MoveResult.VICTORY && Won(minefield) == false) return false;
+            }
+        }
+
+        return minefield.Victory() && Won(minefield);
+    }
+
+    /**
+     * Flags a corner of the board before the first move, so mines are placed under some of the
+     * flags, clears the middle and plays the rest of the game.
+     * 
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param quant_mines Number of mines.
+     * @param bits If the board keeps its spaces as bit planes, see Board.Set_Bit_Board.
+     * @return  If Victory agreed with the board all along.
+     */
+    private static boolean Flags_Before_First_Move(int rows, int columns, long quant_mines,
+                                                   boolean bits) {
+        Board minefield = new Board();
+
+        minefield.Set_Seed(2022);
+        minefield.Set_Bit_Board(bits);
+        minefield.Set_Custom_Board(rows, columns, quant_mines);
+
+        int corner = Math.min(64, rows / 4);
+
+        for (int x = 0; x < corner; x++) {
+            for (int y = 0; y < corner; y++) {
+                minefield.Apply(Action.FLAG, x, y);
+            }
+        }
+
+        MoveResult result = minefield.Apply(Action.CLEAR, rows / 2, columns / 2);
+        if (result == MoveResult.VICTORY && Won(minefield) == false) return false;
+
+        return Finish(minefield);
+    }
+
+    /**
+     * Flags a space without a mine after the first move, saves the game, resumes it on a new board
+     * and plays the rest of it there.
+     * 
+     * @param rows Number of rows.
+     * @param columns Number of columns.
+     * @param quant_mines Number of mines.
+     * @param bits If the board keeps its spaces as bit planes, see Board.Set_Bit_Board.
+     * @return  If the game was resumed and Victory agreed with the board all along.
+     */
+    private static boolean Saved_Flag_On_Safe_Space(int rows, int columns, long quant_mines,
+                                                    boolean bits) throws IOException {
+        Board minefield = new Board();
+
+        minefield.Set_Seed(2022);
+        minefield.Set_Bit_Board(bits);
+        minefield.Set_Custom_Board(rows, columns, quant_mines);
+        minefield.Apply(Action.CLEAR, rows / 2, columns / 2);
+
+        boolean flagged = false;
+
+        for (int x = 0; x < rows && flagged == false; x++) {
+            for (int y = 0; y < columns && flagged == false; y++) {
+                if (minefield.Display_Space(x, y) == '?' && minefield.Display_Answer(x, y) != 'X') {
+                    flagged = minefield.Apply(Action.FLAG, x, y) == MoveResult.FLAGGED;
+                }
+            }
+        }
+
+        Path file = Files.createTempFile("selftest", ".snap");
+
+        try {
+            Snapshot snapshot = new Snapshot(file);
+            Board resumed = new Board();
+            resumed.Set_Bit_Board(bits);
+
+            if (flagged == false) return false;
+            if (snapshot.Save(minefield, new TimeKeeping(), "SelfTest") == false) return false;
+            if (snapshot.Load(resumed, new TimeKeeping()) == null) return false;
+
+            return Finish(resumed);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Plays a script with Batch -v and returns what it printed, errors included.
+     * 
+     * @param script The lines of the script.
+     * @return  The output of Batch.
+     */
+    private static String Batch_Output(String script) throws IOException {
+        Path file = Files.createTempFile("selftest", ".script");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = System.out, err = System.err;
+
+        try (PrintStream capture = new PrintStream(output, true, StandardCharsets.UTF_8)) {
+            Files.write(file, script.getBytes(StandardCharsets.UTF_8));
+            System.setOut(capture);
+            System.setErr(capture);
+
+            Batch batch = new Batch(file.toString(), false, true);
+            batch.Run();
+            batch.Print_Totals(1);
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+            Files.deleteIfExists(file);
+        }
+
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * MAIN FUNCTION!
+     */
+    public static void main(String[] args) throws IOException {
+        for (boolean bits : new boolean[] { false, true }) {
+            String store = bits ? ", bit board" : "";
+
+            Check("flags before the first move, small board" + store,
+                  Flags_Before_First_Move(40, 40, 400, bits));
+            Check("flags before the first move, large board" + store,
+                  Flags_Before_First_Move(4100, 4100, 4100L * 4100 / 100, bits));
+            Check("saved game with a flag on a space without a mine, small board" + store,
+                  Saved_Flag_On_Safe_Space(40, 40, 400, bits));
+            Check("saved game with a flag on a space without a mine, large board" + store,
+                  Saved_Flag_On_Safe_Space(4100, 4100, 4100L * 4100 / 100, bits));
+        }
+
+        String batch = Batch_Output("game 9 12345\ncustom 40 40 0 777\nrevealeverything\ngame 1\n");
+
+        Check("batch lines that can't start a game don't seed the next one",
+              batch.contains("seed 12345.") == false && batch.contains("seed 777.") == false &&
+              batch.contains("Game 0: 15x15"));
+        Check("batch lines with a word of more than 8 letters are invalid",
+              batch.contains("Line 3 of the script is invalid") &&
+              batch.contains("3 invalid lines"));
+
+        System.out.println(passed + " checks passed, " + failed + " failed.");
+        if (failed > 0) System.exit(1);
+    }
+}
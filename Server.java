@@ -0,0 +1,289 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server class.
+ * Hosts many players on one JVM. Every connection is a session of the same Game the console
+ * runs, with its own Board, TimeKeeping and Scoreboard, reading the player's lines from the
+ * socket and writing the prompts and the boards back, so the protocol is the game's own text:
+ * one answer per line. Any line-based client can play, e.g. "nc localhost 2022", and
+ * LoadGenerator simulates thousands of players.
+ * 
+ * Each session runs on its own thread and blocks on its socket like the console blocks on the
+ * keyboard. When the JVM has virtual threads (Java 21), found by reflection so the game still
+ * builds and runs on Java 17, each session gets a virtual thread, so an idle player costs a few
+ * KB; otherwise sessions run on a cached pool of platform threads. A session's output is kept in
+ * a buffer and sent in one write when the session waits for the player's next line.
+ * 
+ * Sessions share the score store, whose group commit writes the scores of players finishing at
+ * the same time with one fsync, so a player only waits for his/her own score, and the Replay log,
+ * where every game is recorded. Games can't be saved on the server. When a session ends, even by
+ * a disconnect, its board's storage goes back to the CellStorePool of its thread.
+ * 
+ * With metrics on, each session records into its own histograms, about 0.5 MB, which are added
+ * to the totals and reused by the next session when it ends, so the metrics take about 0.5 MB
+ * per player connected at a time.
+ * 
+ * Usage: java Server [port | socket file]
+ * A port listens on the loopback address, anything else is the path of a Unix socket.
+ */
+public class Server {
+    static final int DEFAULT_PORT = 2022;
+    private static final int BACKLOG = 4096;
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    private final ServerSocketChannel server;
+    private final ExecutorService sessions;
+    private final boolean virtual;
+    private final Replay replay;
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+
+    /**
+     * The output of a session. Flushes from the Game, e.g. after each board, are ignored, and
+     * everything written is sent by Send, in one write.
+     */
+    private static class Session_Output extends BufferedOutputStream {
+        Session_Output(OutputStream out) {
+            super(out, BUFFER_SIZE);
+        }
+
+        @Override
+        public void flush() {}
+
+        /**
+         * Sends everything written so far.
+         */
+        void Send() throws IOException {
+            super.flush();
+        }
+    }
+
+    /**
+     * The input of a session, which sends the session's output before waiting for the player.
+     */
+    private static class Session_Input extends FilterInputStream {
+        private final Session_Output output;
+
+        Session_Input(InputStream in, Session_Output output) {
+            super(in);
+            this.output = output;
+        }
+
+        @Override
+        public int read() throws IOException {
+            output.Send();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte buffer[], int offset, int length) throws IOException {
+            output.Send();
+            return super.read(buffer, offset, length);
+        }
+    }
+
+    /**
+     * Opens the server's socket.
+     * 
+     * @param address The address to listen on, an InetSocketAddress or a UnixDomainSocketAddress.
+     * @param replay The log where the games are recorded, or null.
+     * @throws IOException If the socket can't be opened.
+     */
+    public Server(SocketAddress address, Replay replay) throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            this.server = ServerSocketChannel.open();
+            this.server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        }
+
+        this.server.bind(address, BACKLOG);
+        this.replay = replay;
+
+        ExecutorService executor = Virtual_Executor();
+        this.virtual = (executor != null);
+        this.sessions = virtual ? executor : Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "session-" + served.get());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns an executor that starts a virtual thread per task, if the JVM has them.
+     * 
+     * @return  The executor, or null before Java 21 or if virtual threads are disabled.
+     */
+    private static ExecutorService Virtual_Executor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the address given on the command line.
+     * 
+     * @param argument A port, or the path of a Unix socket.
+     */
+    static SocketAddress Address(String argument) {
+        long port = Game.Parse_Number(argument, 5);
+
+        if (port >= 0 && port <= 65535) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), (int) port);
+        }
+
+        return UnixDomainSocketAddress.of(Path.of(argument));
+    }
+
+    /**
+     * Accepts players until the server is closed, starting a session for each.
+     */
+    public void Run() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+
+                if (channel.getRemoteAddress() instanceof InetSocketAddress) {
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+
+                served.incrementAndGet();
+                sessions.execute(() -> Serve(channel));
+            } catch (IOException e) {
+                if (server.isOpen()) System.err.println("ERROR CODE 3: A player couldn't join!");
+            }
+        }
+    }
+
+    /**
+     * Plays a session with a connected player, until the player quits or disconnects.
+     * 
+     * @param channel The player's connection.
+     */
+    private void Serve(SocketChannel channel) {
+        active.incrementAndGet();
+
+        try (channel) {
+            Session_Output output = new Session_Output(Channels.newOutputStream(channel));
+            Session_Input input = new Session_Input(Channels.newInputStream(channel), output);
+            Game game = new Game(input, new PrintStream(output, false), null);
+
+            game.Play(replay);
+            output.Send();
+        } catch (NoSuchElementException | IOException e) {
+            // The player disconnected, which ends the session like quitting does.
+        } finally {
+            Metrics.Release();
+            active.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns how the sessions are run.
+     */
+    public String Display_Threads() {
+        return virtual ? "virtual threads" : "a cached thread pool";
+    }
+
+    /**
+     * Returns the number of players connected now.
+     */
+    public long Display_Active() {
+        return active.get();
+    }
+
+    /**
+     * Returns the number of players connected since the server started.
+     */
+    public long Display_Served() {
+        return served.get();
+    }
+
+    /**
+     * Stops accepting players. Sessions already playing go on until they end.
+     */
+    public void Close() {
+        try {
+            SocketAddress address = server.getLocalAddress();
+
+            server.close();
+            if (address instanceof UnixDomainSocketAddress) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            }
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The server's socket couldn't be closed!");
+        }
+    }
+
+    /**
+     * MAIN FUNCTION!
+     */
+    public static void main(String[] args) {
+        SocketAddress address = Address((args.length > 0) ? args[0] : "" + DEFAULT_PORT);
+        Replay replay = null;
+        Server server;
+
+        Metrics.Configure();
+
+        try {
+            replay = new Replay(Replay.DEFAULT_FILE);
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The replay log can't be written!");
+        }
+
+        for (int difficulty = 1; difficulty <= 5; difficulty++) {
+            Game.generator.Prefill(difficulty);
+        }
+
+        try {
+            server = new Server(address, replay);
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The server can't listen on " + address + "!");
+            return ;
+        }
+
+        Replay log = replay;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.Close();
+            System.out.println("Served " + server.Display_Served() + " players.");
+            if (log != null) log.Close();
+        }, "server-exit"));
+
+        System.out.println("Listening on " + address + ", with " + server.Display_Threads() + ".");
+        server.Run();
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulator class.
+ * Plays many games per difficulty with the Bot, spread over all cores with a ForkJoinPool, and
+ * reports the win rate, the average number of moves and the average time per game. Used to tune
+ * the mine densities in Board and the score weights in Scoreboard.
+ * 
+ * Each worker thread keeps its own Board and Bot, and each game gets its own seed, derived from
+ * the base seed, the difficulty and the game's index, so a run can be repeated exactly and any
+ * single game can be replayed with Board.Set_Seed. The workers share nothing until their results
+ * are added up, so the simulation scales with the number of cores.
+ * 
+ * With -Dminesweeper.replay=[file], every game is recorded into a Replay log, e.g. to check later
+ * that changes to the Board don't change how the games end.
+ * 
+ * Usage: java Simulator [games per difficulty] [threads] [base seed]
+ */
+public class Simulator {
+    private static final int LEAF_GAMES = 256;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static Replay replay;
+    private static final ThreadLocal<Board> BOARDS = ThreadLocal.withInitial(() -> {
+        Board minefield = new Board();
+        if (replay != null) minefield.Set_Recorder(replay.New_Recorder());
+
+        return minefield;
+    });
+    private static final ThreadLocal<Bot> BOTS = ThreadLocal.withInitial(Bot::new);
+
+    /**
+     * Totals of a range of games.
+     */
+    static class Result {
+        long games, wins, moves, nanos;
+
+        /**
+         * Adds the totals of another range of games to this one.
+         */
+        Result Add(Result other) {
+            games += other.games;
+            wins += other.wins;
+            moves += other.moves;
+            nanos += other.nanos;
+            return this;
+        }
+    }
+
+    /**
+     * Plays the games from first to last - 1, splitting the range in halves until it has at most
+     * LEAF_GAMES games.
+     */
+    static class Games extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final int difficulty;
+        private final long seed, first, last;
+
+        Games(int difficulty, long seed, long first, long last) {
+            this.difficulty = difficulty;
+            this.seed = seed;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected Result compute() {
+            if (last - first > LEAF_GAMES) {
+                long middle = (first + last) >>> 1;
+                Games left = new Games(difficulty, seed, first, middle);
+                left.fork();
+                Result right = new Games(difficulty, seed, middle, last).compute();
+                return right.Add(left.join());
+            }
+
+            Board minefield = BOARDS.get();
+            Bot bot = BOTS.get();
+            Result result = new Result();
+
+            for (long game = first; game < last; game++) {
+                long game_seed = Game_Seed(seed, difficulty, game);
+                long start = System.nanoTime();
+
+                minefield.Set_Seed(game_seed);
+                minefield.Set_Difficulty(difficulty);
+                MoveResult end = bot.Play(minefield, new SplittableRandom(game_seed));
+
+                result.nanos += System.nanoTime() - start;
+                result.moves += bot.Display_Moves();
+                if (end == MoveResult.VICTORY) result.wins++;
+                result.games++;
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Returns the seed of a game, so any game of a run can be played again on its own.
+     * 
+     * @param seed Base seed of the run.
+     * @param difficulty Difficulty of the game.
+     * @param game Index of the game in its difficulty.
+     * @return  The seed of the game's board.
+     */
+    public static long Game_Seed(long seed, int difficulty, long game) {
+        long z = seed + ((long) difficulty << 48) + (game + 1) * GOLDEN_GAMMA;
+
+        // SplitMix64 finalizer, so neighbouring games get unrelated seeds.
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays a number of games of one difficulty.
+     * 
+     * @param pool Pool where the games are played.
+     * @param difficulty Difficulty from 1 to 5.
+     * @param games Number of games.
+     * @param seed Base seed of the run.
+     * @return  The totals of the games.
+     */
+    public static Result Simulate(ForkJoinPool pool, int difficulty, long games, long seed) {
+        return pool.invoke(new Games(difficulty, seed, 0, games));
+    }
+
+    /**
+     * MAIN FUNCTION!
+     */
+    public static void main(String[] args) {
+        long games = (args.length > 0) ? Long.parseLong(args[0]) : 10000;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) :
+                                          Runtime.getRuntime().availableProcessors();
+        long seed = (args.length > 2) ? Long.parseLong(args[2]) : 2022;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+
+        String replay_file = System.getProperty("minesweeper.replay");
+
+        Metrics.Configure();
+
+        if (replay_file != null) {
+            try {
+                replay = new Replay(Paths.get(replay_file));
+            } catch (IOException e) {
+                System.err.println("ERROR CODE 2: The replay log can't be written!");
+            }
+        }
+
+        System.out.println("Simulating " + games + " games per difficulty on " + threads +
+                           " threads (seed " + seed + ")." + '\n');
+        System.out.printf("%-10s %10s %10s %12s %14s %12s%n", "Difficulty", "Games", "Win rate",
+                          "Avg. moves", "Avg. time", "Games/s");
+
+        for (int difficulty = 1; difficulty <= 5; difficulty++) {
+            long start = System.nanoTime();
+            Result result = Simulate(pool, difficulty, games, seed);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-10d %10d %9.2f%% %12.1f %11.1f us %12.0f%n", difficulty,
+                              result.games, 100.0 * result.wins / result.games,
+                              (double) result.moves / result.games,
+                              result.nanos / 1e3 / result.games, result.games / seconds);
+        }
+
+        pool.shutdown();
+        if (replay != null) replay.Close();
+    }
+}
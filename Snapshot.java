@@ -0,0 +1,400 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot class.
+ * Saves a game in progress, so it can be resumed if the program or the terminal dies. A snapshot
+ * is a binary image of the board and the timer, written to a temporary file that is then renamed
+ * over the last snapshot, so the file always holds a whole snapshot, the old or the new one.
+ * 
+ * The image is, in order:
+ * 
+ * - MAGIC, VERSION, a flags byte (LARGE_BOARD, MINES_PLACED, BIT_BOARD) and the difficulty.
+ * - The rows, columns, mines, seed, first move (used by large boards) and last move.
+ * - The timer: time counted, moves measured, their total and longest time, and the split times.
+ * - The player's name, as its length and UTF-8 bytes.
+ * - The blocks of the board's CellStore that are allocated: the block's index, then the MINE,
+ *   REVEALED and FLAG bits of its spaces as three bit planes, 64 spaces per long. A small board
+ *   is a single block, a bit board has a block per line, and a large one only saves the tiles 
+ *   that were touched.
+ * - A CRC32C of everything before it.
+ * 
+ * The planes are built 8 spaces at a time: 8 bytes of the block are read as one long, and a
+ * multiplication gathers the same bit of each byte into one byte, so a 1000x1000 board is packed
+ * into 375 KB in under a millisecond. The buffer is kept from one snapshot to the next, so saving
+ * doesn't allocate.
+ * 
+ * Resuming doesn't place the mines again: the planes are written straight into the blocks, the
+ * mines nearby are counted for the revealed spaces only, and the counters used by Victory are
+ * counted from the planes.
+ */
+public class Snapshot {
+    static final Path DEFAULT_FILE = Paths.get("saves", "game.snap");
+    private static final int MAGIC = 0x4D535356;
+    private static final short VERSION = 1;
+    private static final int LARGE_BOARD = 1;
+    private static final int MINES_PLACED = 2;
+    private static final int BIT_BOARD = 4;
+    private static final int MINE_BIT = Integer.numberOfTrailingZeros(Board.MINE);
+    private static final int REVEALED_BIT = Integer.numberOfTrailingZeros(Board.REVEALED);
+    private static final int FLAG_BIT = Integer.numberOfTrailingZeros(Board.FLAG);
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long GATHER = 0x0102040810204080L;
+    private static final VarHandle LONGS =
+        MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path file;
+    private final Path temporary;
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 12);
+    private long last_save = System.nanoTime();
+    private boolean directory_ready;
+
+    /**
+     * Creates the snapshots of a file.
+     * 
+     * @param file Where the snapshot is kept.
+     */
+    public Snapshot(Path file) {
+        this.file = file;
+        this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /**
+     * Returns if there is a snapshot to resume.
+     */
+    public boolean Exists() {
+        return Files.exists(file);
+    }
+
+    /**
+     * Deletes the snapshot, once its game is over.
+     */
+    public void Delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The saved game can't be written!");
+        }
+    }
+
+    /**
+     * Saves the game if the last snapshot is older than a number of seconds.
+     * 
+     * @param minefield The board being played.
+     * @param time The game's timer.
+     * @param name The player's name.
+     * @param seconds Time between snapshots.
+     * @return  If the game was saved.
+     */
+    public boolean Autosave(Board minefield, TimeKeeping time, String name, long seconds) {
+        if (System.nanoTime() - last_save < seconds * 1_000_000_000L) return false;
+
+        return Save(minefield, time, name);
+    }
+
+    /**
+     * Saves the game.
+     * 
+     * @param minefield The board being played.
+     * @param time The game's timer.
+     * @param name The player's name.
+     * @return  If the game was saved.
+     */
+    public boolean Save(Board minefield, TimeKeeping time, String name) {
+        CellStore store = minefield.Display_Store();
+        byte name_bytes[] = name.getBytes(StandardCharsets.UTF_8);
+        int blocks = 0;
+        long size = 128 + name_bytes.length + 8L * time.Display_Split_Count();
+
+        for (int i = 0; i < store.Blocks(); i++) {
+            byte block[] = store.Block(i);
+            if (block == null) continue;
+
+            size += 4 + 3 * 8L * Words(block.length);
+            blocks++;
+        }
+
+        if (size > Integer.MAX_VALUE) {
+            System.err.println("ERROR CODE 2: The saved game can't be written!");
+            return false;
+        }
+
+        if (buffer.capacity() < size) buffer = ByteBuffer.allocateDirect((int) size);
+        buffer.clear();
+
+        long first_move = minefield.Display_First_Move();
+        int flags = (minefield.Display_Large_Board() ? LARGE_BOARD : 0) |
+                    (minefield.Display_Mines_Placed() ? MINES_PLACED : 0) |
+                    ((store instanceof BitCellStore) ? BIT_BOARD : 0);
+
+        buffer.putInt(MAGIC).putShort(VERSION);
+        buffer.put((byte) flags).put((byte) minefield.Display_Difficulty());
+        buffer.putInt(minefield.Display_Rows()).putInt(minefield.Display_Columns());
+        buffer.putLong(minefield.Display_Quant_Mines()).putLong(minefield.Display_Seed());
+        buffer.putLong(first_move).putLong(minefield.Display_Last_Move());
+
+        buffer.putLong(time.Elapsed_Nanos()).putLong(time.Display_Move_Count());
+        buffer.putLong(time.Display_Move_Total()).putLong(time.Display_Move_Max());
+        buffer.putInt(time.Display_Split_Count());
+
+        for (int i = 0; i < time.Display_Split_Count(); i++) buffer.putLong(time.Display_Split(i));
+
+        buffer.putInt(name_bytes.length).put(name_bytes);
+        buffer.putInt(blocks);
+
+        for (int i = 0; i < store.Blocks(); i++) {
+            byte block[] = store.Block(i);
+            if (block == null) continue;
+
+            buffer.putInt(i);
+            Write_Planes(block);
+        }
+
+        crc.reset();
+        crc.update(buffer.flip());
+        buffer.limit(buffer.capacity()).putInt((int) crc.getValue()).flip();
+
+        try {
+            if (directory_ready == false && file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+                directory_ready = true;
+            }
+
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("ERROR CODE 2: The saved game can't be written!");
+            return false;
+        }
+
+        this.last_save = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Returns the number of longs of a bit plane.
+     */
+    private static int Words(int spaces) {
+        return (spaces + 63) >>> 6;
+    }
+
+    /**
+     * Returns one bit of each of 8 spaces, read as a long, as a byte: bit i of the result is the
+     * bit of the i-th space.
+     */
+    private static long Gather(long spaces, int bit) {
+        return (((spaces >>> bit) & LOW_BITS) * GATHER) >>> 56;
+    }
+
+    /**
+     * Writes the MINE, REVEALED and FLAG planes of a block.
+     */
+    private void Write_Planes(byte block[]) {
+        int words = Words(block.length);
+        int mines = buffer.position();
+        int revealed = mines + 8 * words;
+        int flags = revealed + 8 * words;
+
+        for (int w = 0; w < words; w++) {
+            long mine = 0, reveal = 0, flag = 0;
+            int first = w << 6;
+
+            if (first + 64 <= block.length) {
+                for (int k = 0; k < 8; k++) {
+                    long spaces = (long) LONGS.get(block, first + (k << 3));
+
+                    mine |= Gather(spaces, MINE_BIT) << (k << 3);
+                    reveal |= Gather(spaces, REVEALED_BIT) << (k << 3);
+                    flag |= Gather(spaces, FLAG_BIT) << (k << 3);
+                }
+            } else {
+                for (int i = first; i < block.length; i++) {
+                    mine |= (long) ((block[i] >>> MINE_BIT) & 1) << (i - first);
+                    reveal |= (long) ((block[i] >>> REVEALED_BIT) & 1) << (i - first);
+                    flag |= (long) ((block[i] >>> FLAG_BIT) & 1) << (i - first);
+                }
+            }
+
+            buffer.putLong(mines + 8 * w, mine);
+            buffer.putLong(revealed + 8 * w, reveal);
+            buffer.putLong(flags + 8 * w, flag);
+        }
+
+        buffer.position(flags + 8 * words);
+    }
+
+    /**
+     * Resumes a saved game: restores the board and the timer.
+     * 
+     * @param minefield The board to be restored.
+     * @param time The timer to be restored, which is started.
+     * @return  The player's name, or null if the snapshot couldn't be read.
+     */
+    public String Load(Board minefield, TimeKeeping time) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < 4 || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Bad size");
+            }
+
+            if (buffer.capacity() < channel.size()) {
+                buffer = ByteBuffer.allocateDirect((int) channel.size());
+            }
+
+            buffer.clear().limit((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+
+            buffer.flip();
+            crc.reset();
+            crc.update(buffer.slice(0, buffer.limit() - 4));
+
+            if (buffer.getInt(buffer.limit() - 4) != (int) crc.getValue()) {
+                throw new IOException("Bad checksum");
+            }
+
+            return Read(minefield, time);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException |
+                 NegativeArraySizeException e) {
+            System.err.println("ERROR CODE 3: The saved game couldn't be read!");
+            return null;
+        }
+    }
+
+    /**
+     * Reads a snapshot whose checksum was checked.
+     */
+    private String Read(Board minefield, TimeKeeping time) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            throw new IOException("Not a snapshot");
+        }
+
+        int flags = buffer.get();
+        int difficulty = buffer.get();
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        long quant_mines = buffer.getLong();
+        long seed = buffer.getLong();
+        long first_move = buffer.getLong();
+        long last_move = buffer.getLong();
+
+        long elapsed = buffer.getLong();
+        long move_count = buffer.getLong();
+        long move_total = buffer.getLong();
+        long move_max = buffer.getLong();
+        long splits[] = new long[buffer.getInt()];
+
+        for (int i = 0; i < splits.length; i++) splits[i] = buffer.getLong();
+
+        byte name[] = new byte[buffer.getInt()];
+        buffer.get(name);
+
+        boolean large_board = (flags & LARGE_BOARD) != 0;
+        boolean bit_board = (flags & BIT_BOARD) != 0;
+
+        if (minefield.Restore(rows, columns, quant_mines, difficulty, seed,
+                              (flags & MINES_PLACED) != 0, first_move, bit_board) == false) {
+            throw new IOException("Bad board");
+        }
+
+        CellStore store = minefield.Display_Store();
+
+        if (large_board != minefield.Display_Large_Board() ||
+            bit_board != (store instanceof BitCellStore)) {
+            throw new IOException("Bad board");
+        }
+
+        int blocks = buffer.getInt();
+        long revealed_safe = 0, flagged_safe = 0, flagged_mines = 0;
+        int indexes[] = new int[blocks];
+        int planes[] = new int[blocks];
+
+        for (int b = 0; b < blocks; b++) {
+            int index = buffer.getInt();
+            if (index < 0 || index >= store.Blocks()) throw new IOException("Bad block");
+
+            byte block[] = store.Restore_Block(index);
+            int words = Words(block.length);
+            int mines = buffer.position();
+            int revealed = mines + 8 * words;
+            int flagged = revealed + 8 * words;
+
+            buffer.position(flagged + 8 * words);
+
+            for (int w = 0; w < words; w++) {
+                long mine = buffer.getLong(mines + 8 * w);
+                long reveal = buffer.getLong(revealed + 8 * w);
+                long flag = buffer.getLong(flagged + 8 * w);
+                int first = w << 6;
+                int last = Math.min(block.length, first + 64);
+
+                revealed_safe += Long.bitCount(reveal & ~mine);
+                flagged_safe += Long.bitCount(flag & ~mine);
+                flagged_mines += Long.bitCount(flag & mine);
+
+                for (int i = first; i < last; i++) {
+                    int shift = i - first;
+
+                    block[i] = (byte) ((((mine >>> shift) & 1) << MINE_BIT) |
+                                       (((reveal >>> shift) & 1) << REVEALED_BIT) |
+                                       (((flag >>> shift) & 1) << FLAG_BIT));
+                }
+            }
+
+            indexes[b] = index;
+            planes[b] = revealed;
+            store.Commit_Block(index);
+        }
+
+        // The mines nearby are counted once every block is in place, since they look across
+        // blocks.
+        for (int b = 0; b < blocks; b++) {
+            int words = Words(store.Block(indexes[b]).length);
+
+            for (int w = 0; w < words; w++) {
+                long reveal = buffer.getLong(planes[b] + 8 * w);
+
+                while (reveal != 0) {
+                    int offset = (w << 6) + Long.numberOfTrailingZeros(reveal);
+                    long space = store.Space_Of(indexes[b], offset);
+
+                    minefield.Restore_Revealed((int) (space >>> 32), (int) space);
+                    reveal &= reveal - 1;
+                }
+            }
+        }
+
+        // Like Board.Add_Flag, a flag on a space without a mine takes it out of the hidden ones.
+        minefield.Restore_Counters((long) rows * columns - quant_mines - revealed_safe -
+                                   flagged_safe, flagged_mines, last_move);
+        time.Restore(elapsed, splits, splits.length, move_count, move_total, move_max);
+        this.last_save = System.nanoTime();
+        return new String(name, StandardCharsets.UTF_8);
+    }
+}
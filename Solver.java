@@ -0,0 +1,387 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Solver class.
+ * Deduces which hidden spaces are provably safe and which provably have a mine, looking only at
+ * what the player sees. Used by the Bot and by the hint option of the game.
+ * 
+ * Each revealed number is a constraint: the number of mines among its unknown hidden neighbours.
+ * The solver applies the single-number rules (no mines left means every unknown neighbour is safe,
+ * as many mines left as unknown neighbours means every one is a mine) and the subset rule for
+ * pairs of numbers up to 2 spaces apart: if the unknown neighbours of A are all neighbours of B,
+ * the remaining neighbours of B hold exactly mines(B) - mines(A) mines.
+ * 
+ * The work is incremental. After each move, Observe queues the numbers around the spaces that
+ * changed, and only those, plus the numbers around new deductions, are looked at again. Player
+ * flags are never trusted: a flagged space counts as hidden unless the solver deduced its mine.
+ */
+public class Solver {
+    private static final byte SAFE = 1;
+    private static final byte MINE = 2;
+    private static final byte QUEUED = 4;
+    private static final int WINDOW = 7;
+
+    private Board board;
+    private int rows, columns;
+    private byte marks[] = new byte[0];
+    private int queue[] = new int[64];
+    private int queue_head, queue_tail;
+    private long safe_list[] = new long[64];
+    private int safe_head, safe_tail;
+    private long mine_list[] = new long[64];
+    private int mine_head, mine_tail;
+    private long marked_mines;
+    private int unknown_effective;
+
+    /**
+     * Prepares the solver for a new game. Boards are limited to Board.LARGE_BOARD_SPACES spaces,
+     * since the solver keeps one byte of knowledge per space.
+     * 
+     * @param minefield The board being played, already set.
+     * @return  If the board is small enough to be solved.
+     */
+    public boolean Reset(Board minefield) {
+        long spaces = (long) minefield.Display_Rows() * minefield.Display_Columns();
+        if (spaces > Board.LARGE_BOARD_SPACES) return false;
+
+        this.board = minefield;
+        this.rows = minefield.Display_Rows();
+        this.columns = minefield.Display_Columns();
+
+        if (marks.length == (int) spaces) {
+            Arrays.fill(marks, (byte) 0);
+        } else {
+            marks = new byte[(int) spaces];
+        }
+
+        queue_head = queue_tail = 0;
+        safe_head = safe_tail = 0;
+        mine_head = mine_tail = 0;
+        marked_mines = 0;
+        return true;
+    }
+
+    /**
+     * Reads the spaces changed by the last Board.Apply and deduces everything that follows from
+     * them. Must be called after every move for the deductions to stay complete.
+     */
+    public void Observe() {
+        for (int i = 0; i < board.Changed_Count(); i++) {
+            Enqueue_Around(board.Changed_Row(i), board.Changed_Column(i));
+        }
+
+        Propagate();
+    }
+
+    /**
+     * Returns the number shown by a character of the gameboard.
+     * 
+     * @param space The character, as returned by Board.Display_Space.
+     * @return  The number of mines nearby, 0 for '*', -1 if the space is hidden or flagged, or 9
+     * if it's a revealed mine.
+     */
+    static int Number(char space) {
+        if (space == '?' || space == 'F') return -1;
+        if (space == '*') return 0;
+        if (space == 'X') return 9;
+
+        return space - '0';
+    }
+
+    /**
+     * Returns the number shown on a space, as in Number.
+     */
+    private int Visible(int x, int y) {
+        return Number(board.Display_Space(x, y));
+    }
+
+    /**
+     * Queues the revealed numbers around a space (and the space itself) to be looked at again.
+     */
+    private void Enqueue_Around(int x, int y) {
+        int last_x = Math.min(x + 1, rows - 1);
+        int last_y = Math.min(y + 1, columns - 1);
+
+        for (int i = Math.max(x - 1, 0); i <= last_x; i++) {
+            for (int j = Math.max(y - 1, 0); j <= last_y; j++) {
+                int index = i * columns + j;
+                if ((marks[index] & QUEUED) != 0) continue;
+
+                int nearby = Visible(i, j);
+                if (nearby < 0 || nearby > 8) continue;
+
+                if (queue_tail - queue_head == queue.length) Grow_Queue();
+                queue[queue_tail & (queue.length - 1)] = index;
+                queue_tail++;
+                marks[index] |= QUEUED;
+            }
+        }
+    }
+
+    /**
+     * Doubles the capacity of the work queue, keeping the queued spaces in order.
+     */
+    private void Grow_Queue() {
+        int grown[] = new int[queue.length * 2];
+
+        for (int i = 0; i < queue.length; i++) {
+            grown[i] = queue[(queue_head + i) & (queue.length - 1)];
+        }
+
+        queue_tail -= queue_head;
+        queue_head = 0;
+        queue = grown;
+    }
+
+    /**
+     * Returns the unknown hidden neighbours of the number at (x, y) as a bit mask over the 7x7
+     * window centred on (center_x, center_y), and stores in unknown_effective how many mines are
+     * among them (the number minus the neighbours already deduced to be mines).
+     */
+    private long Unknown_Mask(int center_x, int center_y, int x, int y) {
+        int last_x = Math.min(x + 1, rows - 1);
+        int last_y = Math.min(y + 1, columns - 1);
+        long mask = 0;
+        int effective = Visible(x, y);
+
+        for (int i = Math.max(x - 1, 0); i <= last_x; i++) {
+            for (int j = Math.max(y - 1, 0); j <= last_y; j++) {
+                int mark = marks[i * columns + j] & (SAFE | MINE);
+
+                if (mark == MINE) {
+                    effective--;
+                } else if (mark == 0 && Visible(i, j) < 0) {
+                    mask |= 1L << ((i - center_x + 3) * WINDOW + (j - center_y + 3));
+                }
+            }
+        }
+
+        unknown_effective = effective;
+        return mask;
+    }
+
+    /**
+     * Processes the queued numbers until no new deduction can be made from them.
+     */
+    private void Propagate() {
+        while (queue_head != queue_tail) {
+            int index = queue[queue_head & (queue.length - 1)];
+            queue_head++;
+            marks[index] &= ~QUEUED;
+
+            int x = index / columns;
+            int y = index % columns;
+            long unknown = Unknown_Mask(x, y, x, y);
+            int effective = unknown_effective;
+            int count = Long.bitCount(unknown);
+
+            if (count == 0) continue;
+
+            if (effective == 0) {
+                Mark(unknown, x, y, SAFE);
+                continue;
+            }
+
+            if (effective == count) {
+                Mark(unknown, x, y, MINE);
+                continue;
+            }
+
+            int last_x = Math.min(x + 2, rows - 1);
+            int last_y = Math.min(y + 2, columns - 1);
+
+            for (int i = Math.max(x - 2, 0); i <= last_x; i++) {
+                for (int j = Math.max(y - 2, 0); j <= last_y; j++) {
+                    if (i == x && j == y) continue;
+
+                    int nearby = Visible(i, j);
+                    if (nearby < 0 || nearby > 8) continue;
+
+                    long other = Unknown_Mask(x, y, i, j);
+                    int other_effective = unknown_effective;
+                    if (other == 0) continue;
+
+                    if ((unknown & ~other) == 0) {
+                        Subset_Rule(other & ~unknown, other_effective - effective, x, y);
+                    }
+
+                    if ((other & ~unknown) == 0) {
+                        Subset_Rule(unknown & ~other, effective - other_effective, x, y);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the subset rule to the neighbours one number has beyond another.
+     * 
+     * @param rest The extra unknown neighbours, as a mask over the window around (x, y).
+     * @param mines The number of mines among them.
+     */
+    private void Subset_Rule(long rest, int mines, int x, int y) {
+        if (rest == 0) return ;
+
+        if (mines == 0) {
+            Mark(rest, x, y, SAFE);
+        } else if (mines == Long.bitCount(rest)) {
+            Mark(rest, x, y, MINE);
+        }
+    }
+
+    /**
+     * Records deductions for every space of a mask, and queues the numbers around them, since
+     * their unknown neighbours changed.
+     * 
+     * @param mask Spaces, as a mask over the 7x7 window centred on (center_x, center_y).
+     * @param kind SAFE or MINE.
+     */
+    private void Mark(long mask, int center_x, int center_y, byte kind) {
+        while (mask != 0) {
+            int bit = Long.numberOfTrailingZeros(mask);
+            mask &= mask - 1;
+
+            int x = center_x + bit / WINDOW - 3;
+            int y = center_y + bit % WINDOW - 3;
+            Mark_Space(x, y, kind);
+        }
+    }
+
+    /**
+     * Records a deduction for a single space, unless it was already deduced.
+     */
+    private void Mark_Space(int x, int y, byte kind) {
+        int index = x * columns + y;
+        if ((marks[index] & (SAFE | MINE)) != 0) return ;
+
+        marks[index] |= kind;
+        long space = ((long) x << 32) | y;
+
+        if (kind == SAFE) {
+            if (safe_tail == safe_list.length) safe_list = Arrays.copyOf(safe_list, safe_tail * 2);
+            safe_list[safe_tail++] = space;
+        } else {
+            if (mine_tail == mine_list.length) mine_list = Arrays.copyOf(mine_list, mine_tail * 2);
+            mine_list[mine_tail++] = space;
+            marked_mines++;
+        }
+
+        Enqueue_Around(x, y);
+    }
+
+    /**
+     * Uses the number of mines left when the numbers alone aren't enough: if every mine has been
+     * deduced, all other hidden spaces are safe, and if the mines left equal the unknown hidden
+     * spaces, all of them are mines. Looks at the whole board, so it should only be called when
+     * Next_Safe and Next_Mine have nothing left.
+     * 
+     * @return  If new deductions were made.
+     */
+    public boolean Count_Rule() {
+        long mines_left = board.Display_Quant_Mines() - marked_mines;
+        long unknown = 0;
+
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                if (marks[x * columns + y] == 0 && Visible(x, y) < 0) unknown++;
+            }
+        }
+
+        if (unknown == 0 || (mines_left != 0 && mines_left != unknown)) return false;
+
+        byte kind = (mines_left == 0) ? SAFE : MINE;
+
+        for (int x = 0; x < rows; x++) {
+            for (int y = 0; y < columns; y++) {
+                if ((marks[x * columns + y] & (SAFE | MINE)) == 0 && Visible(x, y) < 0) {
+                    Mark_Space(x, y, kind);
+                }
+            }
+        }
+
+        Propagate();
+        return true;
+    }
+
+    /**
+     * Returns a space deduced to be safe that is still hidden and not flagged, removing it from
+     * the list.
+     * 
+     * @return  The space, with the line in the upper 32 bits and the column in the lower 32 bits,
+     * or -1 if there is none.
+     */
+    public long Next_Safe() {
+        while (safe_head < safe_tail) {
+            long space = safe_list[safe_head++];
+            if (board.Display_Space((int) (space >>> 32), (int) space) == '?') return space;
+        }
+
+        safe_head = safe_tail = 0;
+        return -1;
+    }
+
+    /**
+     * Returns a space deduced to have a mine that isn't flagged yet, removing it from the list.
+     * 
+     * @return  The space, packed as in Next_Safe, or -1 if there is none.
+     */
+    public long Next_Mine() {
+        while (mine_head < mine_tail) {
+            long space = mine_list[mine_head++];
+            if (board.Display_Space((int) (space >>> 32), (int) space) == '?') return space;
+        }
+
+        mine_head = mine_tail = 0;
+        return -1;
+    }
+
+    /**
+     * Returns a hint for the player without removing it: preferably a safe space, otherwise a
+     * mine that isn't flagged yet.
+     * 
+     * @return  The space, packed as in Next_Safe, or -1 if nothing can be deduced.
+     */
+    public long Hint() {
+        long space = Next_Safe();
+
+        if (space != -1) {
+            safe_head--;
+            return space;
+        }
+
+        space = Next_Mine();
+        if (space != -1) mine_head--;
+
+        return space;
+    }
+
+    /**
+     * Checks if a space is hidden and nothing was deduced about it.
+     */
+    public boolean Is_Unknown(int x, int y) {
+        return (marks[x * columns + y] & (SAFE | MINE)) == 0 && Visible(x, y) < 0;
+    }
+
+    /**
+     * Returns the number of mines deduced so far, flagged or not.
+     */
+    public long Display_Marked_Mines() {
+        return this.marked_mines;
+    }
+
+    /**
+     * Checks if the solver deduced that a space has a mine.
+     */
+    public boolean Is_Mine(int x, int y) {
+        return (marks[x * columns + y] & MINE) != 0;
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.math.BigInteger;
+import java.util.SplittableRandom;
+
+/**
+ * TiledCellStore class.
+ * Stores a large board as 64x64 tiles, which are only allocated when one of their spaces is
+ * touched. The mines of a tile are placed when the tile is allocated, so a board with billions of
+ * spaces only uses memory around the spaces that were actually played.
+ * 
+ * Each tile receives its share of the board's mines, proportional to its number of spaces, so the
+ * board always has exactly quant_mines mines. The positions inside a tile come from a random
+ * generator seeded with the board's seed and the tile's index, so the same seed and first move 
+ * always generate the same board, no matter in which order the tiles are touched.
+ * 
+ * No mines are placed before Place_Mines is called with the first move, whose space and 
+ * neighbours are left out of the sampling. Tiles touched before that, e.g. to draw the board, are
+ * filled at that moment.
+ */
+public class TiledCellStore implements CellStore {
+    private static final int TILE_BITS = 6;
+    static final int TILE = 1 << TILE_BITS;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final int rows;
+    private final int columns;
+    private final int tiles_per_row;
+    private final long quant_mines;
+    private final long seed;
+    private final byte tiles[][];
+    private boolean placed = false;
+    private int loaded_tiles;
+    private int first_x, first_y;
+
+    /**
+     * Creates a store with no tiles allocated yet.
+     * 
+     * @param rows Number of lines of the board.
+     * @param columns Number of columns of the board.
+     * @param quant_mines Number of mines in the whole board.
+     * @param seed Seed used to place the mines.
+     */
+    public TiledCellStore(int rows, int columns, long quant_mines, long seed) {
+        this.rows = rows;
+        this.columns = columns;
+        this.tiles_per_row = (columns + TILE - 1) >> TILE_BITS;
+        this.quant_mines = quant_mines;
+        this.seed = seed;
+        this.tiles = new byte[((rows + TILE - 1) >> TILE_BITS) * tiles_per_row][];
+    }
+
+    @Override
+    public int Get(int x, int y) {
+        return Tile(x, y)[((x & (TILE - 1)) << TILE_BITS) | (y & (TILE - 1))];
+    }
+
+    @Override
+    public void Set(int x, int y, int cell) {
+        Tile(x, y)[((x & (TILE - 1)) << TILE_BITS) | (y & (TILE - 1))] = (byte) cell;
+    }
+
+    @Override
+    public void Clear() {
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = null;
+        }
+
+        placed = false;
+        loaded_tiles = 0;
+    }
+
+    @Override
+    public long Allocated_Bytes() {
+        return 8L * tiles.length + (long) loaded_tiles * TILE * TILE;
+    }
+
+    @Override
+    public int Blocks() {
+        return tiles.length;
+    }
+
+    @Override
+    public byte[] Block(int index) {
+        return tiles[index];
+    }
+
+    @Override
+    public byte[] Restore_Block(int index) {
+        if (tiles[index] == null) {
+            tiles[index] = new byte[TILE * TILE];
+            loaded_tiles++;
+        }
+
+        return tiles[index];
+    }
+
+    @Override
+    public void Commit_Block(int index) {}
+
+    @Override
+    public long Space_Of(int index, int offset) {
+        long x = ((index / tiles_per_row) << TILE_BITS) | (offset >> TILE_BITS);
+        long y = ((index % tiles_per_row) << TILE_BITS) | (offset & (TILE - 1));
+
+        return (x << 32) | y;
+    }
+
+    /**
+     * Returns if Place_Mines was called.
+     */
+    public boolean Mines_Placed() {
+        return this.placed;
+    }
+
+    /**
+     * Returns the tile which contains a space, allocating it and placing its mines if it wasn't
+     * touched before.
+     * 
+     * @param x Line coordinates of the space.
+     * @param y Column coordinates of the space.
+     * @return  The tile's spaces, 64 per line.
+     */
+    private byte[] Tile(int x, int y) {
+        int index = (x >> TILE_BITS) * tiles_per_row + (y >> TILE_BITS);
+        byte tile[] = tiles[index];
+
+        if (tile == null) {
+            tile = new byte[TILE * TILE];
+            if (placed) Load_Mines(index, tile);
+            tiles[index] = tile;
+            loaded_tiles++;
+        }
+
+        return tile;
+    }
+
+    /**
+     * Places the mines of every tile, the tiles touched so far right away and the others when 
+     * they're touched, keeping the first move and its neighbours free of mines.
+     * 
+     * @param x Line coordinates of the first move.
+     * @param y Column coordinates of the first move.
+     * @return  The number of mines placed on flagged spaces.
+     */
+    public long Place_Mines(int x, int y) {
+        long flagged = 0;
+
+        this.placed = true;
+        this.first_x = x;
+        this.first_y = y;
+
+        for (int index = 0; index < tiles.length; index++) {
+            if (tiles[index] != null) flagged += Load_Mines(index, tiles[index]);
+        }
+
+        return flagged;
+    }
+
+    /**
+     * Places a tile's share of the mines with Floyd's sampling algorithm. The spaces excluded by 
+     * the first move are taken out of the tile and out of the count of spaces before it, so each 
+     * tile's share is still proportional to the spaces that can get a mine. BitCellStore also 
+     * calls it, tile after tile, to place the mines of a large bit board all at once.
+     * 
+     * @param index Index of the tile, counting the tiles line after line.
+     * @param tile The tile's spaces.
+     * @return  The number of mines placed on flagged spaces.
+     */
+    int Load_Mines(int index, byte tile[]) {
+        int tile_x = (index / tiles_per_row) << TILE_BITS;
+        int tile_y = (index % tiles_per_row) << TILE_BITS;
+        int height = Math.min(TILE, rows - tile_x);
+        int width = Math.min(TILE, columns - tile_y);
+        int excluded[] = Board.Excluded_Spaces(first_x, first_y, tile_x, tile_y, height, width);
+        int spaces = height * width - excluded.length;
+
+        long first = (long) tile_x * columns + (long) height * tile_y - Excluded_Before(index);
+        int mines = (int) (Mines_Before(first + spaces) - Mines_Before(first));
+        SplittableRandom rng = new SplittableRandom(seed + (index + 1) * GOLDEN_GAMMA);
+        int flagged = 0;
+
+        for (int j = spaces - mines; j < spaces; j++) {
+            int t = Board.Skip_Excluded(rng.nextInt(j + 1), excluded);
+            int offset = ((t / width) << TILE_BITS) | (t % width);
+
+            if ((tile[offset] & Board.MINE) != 0) {
+                t = Board.Skip_Excluded(j, excluded);
+                offset = ((t / width) << TILE_BITS) | (t % width);
+            }
+
+            if ((tile[offset] & Board.FLAG) != 0) flagged++;
+            tile[offset] |= Board.MINE;
+        }
+
+        return flagged;
+    }
+
+    /**
+     * Returns how many spaces excluded by the first move are in the tiles before a given tile.
+     * 
+     * @param index Index of the tile.
+     */
+    private int Excluded_Before(int index) {
+        int count = 0;
+
+        for (int x = Math.max(first_x - 1, 0); x <= Math.min(first_x + 1, rows - 1); x++) {
+            for (int y = Math.max(first_y - 1, 0); y <= Math.min(first_y + 1, columns - 1); y++) {
+                if ((x >> TILE_BITS) * tiles_per_row + (y >> TILE_BITS) < index) count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns how many of the board's mines belong to the tiles before a given space, when the
+     * spaces that can get a mine are counted tile after tile. Each tile gets 
+     * floor(quant_mines * spaces / total) mines, rounded so that the shares add up to quant_mines
+     * exactly.
+     * 
+     * @param spaces Number of spaces that can get a mine in the tiles before the given space.
+     * @return  The number of mines in those tiles.
+     */
+    private long Mines_Before(long spaces) {
+        long total = (long) rows * columns - Excluded_Before(tiles.length);
+
+        return BigInteger.valueOf(quant_mines)
+                         .multiply(BigInteger.valueOf(spaces))
+                         .divide(BigInteger.valueOf(total))
+                         .longValue();
+    }
+}
@@ -1,125 +1,255 @@
-/**
- * MINESWEEPER GAME
- * 
- * Author: Andre Kenji Sato
- * Version: Beta 1.0
- * 
- * (N) No rights reserved. 2022.
- */
-
-import java.time.*;
-
-/**
- * TimeKeepinng class. 
- * Keeps track of starting and finishing times.
- */
-public class TimeKeeping {
-    private LocalTime clock;
-    private LocalDate date;
-    private int[] start_time = new int[3]; 
-    private int[] finish_time = new int[3];
-    private int start_day, finish_day;
-    private double hours, minutes, seconds;
-
-    /**
-     * Empty constructor.
-     */
-    public TimeKeeping() {}
-
-    /**
-     * Stores the starting and the ending time of a game.
-     * Index 0 stores the hours, 1 stores the minutes and 2 stores the seconds.
-     * 
-     * @param status indicates if the time to be stored is the starting or the ending time.
-     */
-    public void Update_Time(String status) {
-        clock = LocalTime.now();
-        date = LocalDate.now();
-
-        if (status == "start") {
-            start_time[0] = clock.getHour();
-            start_time[1] = clock.getMinute();
-            start_time[2] = clock.getSecond();
-            start_day = date.getDayOfYear();
-        }
-
-        if (status == "finish") {
-            finish_time[0] = clock.getHour();
-            finish_time[1] = clock.getMinute();
-            finish_time[2] = clock.getSecond();
-            finish_day = date.getDayOfYear();
-        }
-        
-    }
-
-    /**
-     * Prints the hours, minutes and seconds taken for the player to finish the game.
-     */
-    public void Time_Taken() {
-        System.out.print("Total game time: ");
-
-        int hour = finish_time[0] - start_time[0];
-        int min = finish_time[1] - start_time[1];
-        int sec = finish_time[2] - start_time[2];
-
-        if (hour >= 0 && start_day != finish_day) {
-            hour = 24;
-            System.out.print("More than 24 hours.");
-            return ;
-        }
-
-        if (sec < 0) {
-            sec += 60;
-            min += -1;
-        }
-
-        if (min < 0) {
-            min += 60;
-            hour += -1;
-        }
-
-        if (hour < 0) hour += 24;
-        this.hours = hour;
-        this.minutes = min;
-        this.seconds = sec;
-
-        if (hour != 0) {
-            if (hour == 1) {
-                System.out.print("1 hour ");
-            } else {
-                System.out.print((int) hour + " hours ");
-            }
-        }
-
-        if (min != 0) {
-            if (hour != 0) System.out.print(" ");
-
-            if (min == 1) {
-                System.out.print("1 minute ");
-            } else {
-                System.out.print((int) min + " minutes ");
-            }
-        }
-
-        if (sec != 0) {
-            if (hour != 0 || min != 0) System.out.print(" ");
-            
-            if (sec == 1) {
-                System.out.print("1 second");
-            } else {
-                System.out.print((int) sec + " secounds");
-            }
-        }
-
-        System.out.println(".");
-    }
-
-    /**
-     * Returns the time it took to finish a game in minutes.
-     * 
-     * @return Time in minutes.
-     */
-    public double Game_Duration() {
-        return hours * 60 + minutes + seconds / 60;
-    }
-}
+/**
+ * MINESWEEPER GAME
+ * 
+ * Author: Andre Kenji Sato
+ * Version: Beta 1.0
+ * 
+ * (N) No rights reserved. 2022.
+ */
+
+import java.io.PrintStream;
+
+/**
+ * TimeKeepinng class.
+ * Keeps track of the time of a game with System.nanoTime, which is monotonic, so the result
+ * doesn't depend on the date, the time zone or changes of the system clock. The timer can be
+ * paused and resumed, split times can be taken, and the time the game takes to process each move
+ * is measured.
+ * 
+ * The per-move calls only read the clock and write into arrays allocated by the constructor, so
+ * they never allocate. The last MOVE_SAMPLES move times are kept, along with the count, total and
+ * maximum of all of them.
+ */
+public class TimeKeeping {
+    private static final int MOVE_SAMPLES = 1 << 12;
+    private static final int MAX_SPLITS = 64;
+
+    private long started, elapsed;
+    private boolean running, paused;
+    private final long splits[] = new long[MAX_SPLITS];
+    private int split_count;
+    private final long move_nanos[] = new long[MOVE_SAMPLES];
+    private long move_started, move_count, move_total, move_max;
+
+    /**
+     * Empty constructor.
+     */
+    public TimeKeeping() {}
+
+    /**
+     * Starts, pauses, resumes or stops the timer.
+     * 
+     * @param status "start", "pause", "resume" or "finish".
+     */
+    public void Update_Time(String status) {
+        if ("start".equals(status)) Start();
+        if ("pause".equals(status)) Pause();
+        if ("resume".equals(status)) Resume();
+        if ("finish".equals(status)) Stop();
+    }
+
+    /**
+     * Starts the timer from 0, forgetting the splits and the move times of the last game.
+     */
+    public void Start() {
+        this.elapsed = 0;
+        this.split_count = 0;
+        this.move_count = this.move_total = this.move_max = 0;
+        this.running = true;
+        this.paused = false;
+        this.started = System.nanoTime();
+    }
+
+    /**
+     * Starts the timer from a saved state, as read from a Snapshot.
+     * 
+     * @param elapsed Time counted when it was saved, in nanoseconds.
+     * @param splits Split times taken.
+     * @param split_count Number of split times.
+     * @param move_count Number of moves measured.
+     * @param move_total Total time of the moves, in nanoseconds.
+     * @param move_max Longest time of a move, in nanoseconds.
+     */
+    public void Restore(long elapsed, long splits[], int split_count, long move_count,
+                        long move_total, long move_max) {
+        Start();
+        this.split_count = Math.min(split_count, MAX_SPLITS);
+        System.arraycopy(splits, 0, this.splits, 0, this.split_count);
+        this.move_count = move_count;
+        this.move_total = move_total;
+        this.move_max = move_max;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * Pauses the timer. The time until Resume isn't counted.
+     */
+    public void Pause() {
+        if (running == false || paused == true) return ;
+
+        this.elapsed += System.nanoTime() - started;
+        this.paused = true;
+    }
+
+    /**
+     * Resumes a paused timer.
+     */
+    public void Resume() {
+        if (running == false || paused == false) return ;
+
+        this.started = System.nanoTime();
+        this.paused = false;
+    }
+
+    /**
+     * Stops the timer at the end of a game.
+     */
+    public void Stop() {
+        Pause();
+        this.running = false;
+    }
+
+    /**
+     * Returns the time counted so far, without the pauses.
+     * 
+     * @return Time in nanoseconds.
+     */
+    public long Elapsed_Nanos() {
+        if (running == true && paused == false) return elapsed + System.nanoTime() - started;
+
+        return this.elapsed;
+    }
+
+    /**
+     * Takes a split time. Only the first MAX_SPLITS splits of a game are kept.
+     * 
+     * @return The time counted so far, in nanoseconds.
+     */
+    public long Split() {
+        long now = Elapsed_Nanos();
+        if (split_count < MAX_SPLITS) splits[split_count++] = now;
+
+        return now;
+    }
+
+    /**
+     * Returns the number of split times taken.
+     */
+    public int Display_Split_Count() {
+        return this.split_count;
+    }
+
+    /**
+     * Returns a split time, in nanoseconds since the start.
+     */
+    public long Display_Split(int i) {
+        return this.splits[i];
+    }
+
+    /**
+     * Marks the start of the processing of a move.
+     */
+    public void Move_Start() {
+        this.move_started = System.nanoTime();
+    }
+
+    /**
+     * Marks the end of the processing of a move, and records the time it took.
+     * 
+     * @return Time in nanoseconds.
+     */
+    public long Move_End() {
+        long nanos = System.nanoTime() - move_started;
+
+        move_nanos[(int) (move_count & (MOVE_SAMPLES - 1))] = nanos;
+        move_count++;
+        move_total += nanos;
+        move_max = Math.max(move_max, nanos);
+        return nanos;
+    }
+
+    /**
+     * Returns the number of moves measured.
+     */
+    public long Display_Move_Count() {
+        return this.move_count;
+    }
+
+    /**
+     * Returns the time a recent move took.
+     * 
+     * @param i Index of the move, from 0. Only the last MOVE_SAMPLES moves are kept.
+     * @return Time in nanoseconds.
+     */
+    public long Display_Move_Nanos(long i) {
+        return this.move_nanos[(int) (i & (MOVE_SAMPLES - 1))];
+    }
+
+    /**
+     * Returns the total time the moves took, in nanoseconds.
+     */
+    public long Display_Move_Total() {
+        return this.move_total;
+    }
+
+    /**
+     * Returns the longest time a move took, in nanoseconds.
+     */
+    public long Display_Move_Max() {
+        return this.move_max;
+    }
+
+    /**
+     * Returns the average time a move took, in nanoseconds.
+     */
+    public double Display_Move_Average() {
+        return (move_count == 0) ? 0 : (double) move_total / move_count;
+    }
+
+    /**
+     * Prints the hours, minutes and seconds taken for the player to finish the game.
+     * 
+     * @param out Where the time is printed.
+     */
+    public void Time_Taken(PrintStream out) {
+        long millis = Elapsed_Nanos() / 1_000_000;
+        long hour = millis / 3_600_000;
+        long min = millis / 60_000 % 60;
+        double sec = millis % 60_000 / 1000.0;
+
+        out.print("Total game time: ");
+
+        if (hour != 0) {
+            out.print((hour == 1) ? "1 hour " : hour + " hours ");
+        }
+
+        if (min != 0) {
+            out.print((min == 1) ? "1 minute " : min + " minutes ");
+        }
+
+        out.printf("%.3f seconds.%n", sec);
+
+        if (move_count != 0) {
+            out.printf("Moves: %d, processed in %.3f ms on average (slowest %.3f ms).%n",
+                       move_count, Display_Move_Average() / 1e6, move_max / 1e6);
+        }
+    }
+
+    /**
+     * Returns the time it took to finish a game.
+     * 
+     * @return Time in nanoseconds.
+     */
+    public long Game_Duration_Nanos() {
+        return Elapsed_Nanos();
+    }
+
+    /**
+     * Returns the time it took to finish a game in minutes.
+     * 
+     * @return Time in minutes.
+     */
+    public double Game_Duration() {
+        return Elapsed_Nanos() / 60e9;
+    }
+}